@@ -2,11 +2,28 @@ package com.claudio;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
 
+import com.claudio.reactive.ReactivePlanetApiApplication;
+
+@EnableCaching
+@EnableScheduling
 @SpringBootApplication
 public class SwPlanetApiApplication {
 
 	public static void main(String[] args) {
+		//Com o perfil reactive sobe a variante WebFlux + R2DBC (com.claudio.reactive) no lugar desta
+		StandardEnvironment environment = new StandardEnvironment();
+		environment.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+		if (environment.acceptsProfiles(Profiles.of(ReactivePlanetApiApplication.PROFILE))) {
+			ReactivePlanetApiApplication.main(args);
+			return;
+		}
+		
 		SpringApplication.run(SwPlanetApiApplication.class, args);
 	}
 
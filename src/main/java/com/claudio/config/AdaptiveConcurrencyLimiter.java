@@ -0,0 +1,77 @@
+package com.claudio.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limite de requisições simultâneas ajustado pela latência observada (AIMD): com a latência perto da linha de base
+ * o limite sobe 1 (enquanto estiver sendo usado); acima de tolerance × linha de base ele cai 10%, no máximo
+ * uma vez por linha de base. A linha de base é a menor latência recente e sobe devagar, acompanhando mudanças reais.
+ * Tudo em CAS: nenhuma requisição espera por lock aqui.
+ */
+public class AdaptiveConcurrencyLimiter {
+	
+	private static final double BACKOFF = 0.9;
+	
+	private final int minLimit;
+	
+	private final int maxLimit;
+	
+	private final double tolerance;
+	
+	//Latências abaixo disso nunca contam como sobrecarga (ruído quando a linha de base é de microssegundos)
+	private final long latencyFloorNanos;
+	
+	private final AtomicInteger limit;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicLong baselineNanos = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+	
+	public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, long latencyFloorNanos) {
+		this.minLimit = Math.max(1, minLimit);
+		this.maxLimit = Math.max(this.minLimit, maxLimit);
+		this.tolerance = tolerance;
+		this.latencyFloorNanos = latencyFloorNanos;
+		this.limit = new AtomicInteger(Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit)));
+	}
+	
+	public int getLimit() {
+		return limit.get();
+	}
+	
+	public int getInFlight() {
+		return inFlight.get();
+	}
+	
+	public boolean tryAcquire() {
+		for (;;) {
+			int current = inFlight.get();
+			if (current >= limit.get()) {
+				return false;
+			}
+			if (inFlight.compareAndSet(current, current + 1)) {
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Devolve a vaga e usa a latência da requisição como amostra.
+	 */
+	public void release(long latencyNanos) {
+		int inFlightBefore = inFlight.getAndDecrement();
+		long baseline = baselineNanos.accumulateAndGet(latencyNanos,
+				(current, sample) -> sample < current ? sample : current + (sample - current) / 256);
+		
+		if (latencyNanos > Math.max(latencyFloorNanos, (long) (baseline * tolerance))) {
+			long now = System.nanoTime();
+			long last = lastDecrease.get();
+			if (now - last > baseline && lastDecrease.compareAndSet(last, now)) {
+				limit.updateAndGet(current -> Math.max(minLimit, (int) (current * BACKOFF)));
+			}
+		} else if (inFlightBefore * 2 >= limit.get()) {
+			limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+		}
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.claudio.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Limita quantas threads podem segurar (ou esperar por) uma conexão ao mesmo tempo.
+ * Com virtual threads não há mais o teto natural do pool do Tomcat, então milhares de requisições
+ * esperam aqui, numa fila justa e com timeout, em vez de disputar o pool do Hikari.
+ */
+public class BoundedDataSource extends DelegatingDataSource {
+	
+	private final Semaphore permits;
+	
+	private final long acquireTimeoutMillis;
+	
+	public BoundedDataSource(DataSource target, int maxConnections, Duration acquireTimeout) {
+		super(target);
+		this.permits = new Semaphore(maxConnections, true);
+		this.acquireTimeoutMillis = acquireTimeout.toMillis();
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquire();
+		try {
+			return releasingOnClose(super.getConnection());
+		} catch (SQLException | RuntimeException ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+	
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		acquire();
+		try {
+			return releasingOnClose(super.getConnection(username, password));
+		} catch (SQLException | RuntimeException ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+	
+	public int availablePermits() {
+		return permits.availablePermits();
+	}
+	
+	private void acquire() throws SQLException {
+		try {
+			if (!permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				throw new SQLTransientConnectionException("Timed out after " + acquireTimeoutMillis + "ms waiting for a database connection");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", ex);
+		}
+	}
+	
+	private Connection releasingOnClose(Connection connection) {
+		AtomicBoolean released = new AtomicBoolean();
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					if ("close".equals(method.getName()) && released.compareAndSet(false, true)) {
+						permits.release();
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException ex) {
+						throw ex.getTargetException();
+					}
+				});
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.claudio.config;
+
+import java.util.Set;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Identidade do cliente para o limite de taxa e o read-your-writes: uma das API keys configuradas ou, sem ela,
+ * o endereço de origem. Atrás de proxy/balanceador, o endereço só distingue clientes com
+ * server.forward-headers-strategy ligado; sem isso, todos compartilham o endereço do proxy.
+ */
+class ClientKeys {
+	
+	private final String apiKeyHeader;
+	
+	//Só estas chaves valem; as demais não (quem as inventa não foge do limite do seu IP)
+	private final Set<String> apiKeys;
+	
+	ClientKeys(String apiKeyHeader, Set<String> apiKeys) {
+		this.apiKeyHeader = apiKeyHeader;
+		this.apiKeys = Set.copyOf(apiKeys);
+	}
+	
+	//Prefixos separam os dois espaços de chaves
+	String of(HttpServletRequest request) {
+		String apiKey = request.getHeader(apiKeyHeader);
+		return apiKey != null && apiKeys.contains(apiKey) ? "key:" + apiKey : "addr:" + request.getRemoteAddr();
+	}
+
+}
@@ -0,0 +1,48 @@
+package com.claudio.config;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Limites de carga em /planets (planets.limits.*): concorrência adaptativa e taxa por API key conhecida (ou por IP).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "planets.limits.enabled", havingValue = "true", matchIfMissing = true)
+public class LoadSheddingConfig {
+	
+	@Bean
+	public AdaptiveConcurrencyLimiter concurrencyLimiter(@Value("${planets.limits.initial:50}") int initialLimit,
+			@Value("${planets.limits.min:5}") int minLimit,
+			@Value("${planets.limits.max:200}") int maxLimit,
+			@Value("${planets.limits.latency-tolerance:2.0}") double tolerance,
+			@Value("${planets.limits.latency-floor:10ms}") Duration latencyFloor) {
+		return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, latencyFloor.toNanos());
+	}
+	
+	//Depois do filtro de observação (http.server.requests), para que as rejeições apareçam nas métricas
+	@Bean
+	public FilterRegistrationBean<LoadSheddingFilter> loadSheddingFilter(AdaptiveConcurrencyLimiter concurrencyLimiter,
+			@Value("${planets.rate-limit.requests-per-second:0}") double permitsPerSecond,
+			@Value("${planets.rate-limit.burst:200}") int burst,
+			@Value("${planets.rate-limit.max-keys:100000}") int maxKeys,
+			@Value("${planets.rate-limit.header:X-API-Key}") String apiKeyHeader,
+			@Value("${planets.rate-limit.api-keys:}") Set<String> apiKeys) {
+		RateLimiter rateLimiter = permitsPerSecond > 0 ? new RateLimiter(permitsPerSecond, burst, maxKeys, Duration.ofMinutes(10)) : null;
+		
+		FilterRegistrationBean<LoadSheddingFilter> registration = new FilterRegistrationBean<>(
+				new LoadSheddingFilter(concurrencyLimiter, rateLimiter, apiKeyHeader, apiKeys));
+		registration.addUrlPatterns("/planets", "/planets/*");
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 100);
+		return registration;
+	}
+
+}
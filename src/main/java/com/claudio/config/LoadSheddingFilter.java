@@ -0,0 +1,76 @@
+package com.claudio.config;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Na frente do PlanetController: primeiro o limite por API key (429), depois o limite adaptativo de concorrência (503).
+ * A rejeição acontece antes do DispatcherServlet, sem tocar no PlanetService, no pool de conexões ou em fila nenhuma.
+ */
+public class LoadSheddingFilter extends OncePerRequestFilter {
+	
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+	
+	//Nulo quando o limite por cliente está desligado
+	private final RateLimiter rateLimiter;
+	
+	private final ClientKeys clientKeys;
+	
+	private final Counter rateLimited = Metrics.counter("planets.limits.rejected", "reason", "rate");
+	private final Counter overloaded = Metrics.counter("planets.limits.rejected", "reason", "overload");
+	
+	public LoadSheddingFilter(AdaptiveConcurrencyLimiter concurrencyLimiter, RateLimiter rateLimiter, String apiKeyHeader,
+			Set<String> apiKeys) {
+		this.concurrencyLimiter = concurrencyLimiter;
+		this.rateLimiter = rateLimiter;
+		this.clientKeys = new ClientKeys(apiKeyHeader, apiKeys);
+		Gauge.builder("planets.limits.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit).register(Metrics.globalRegistry);
+		Gauge.builder("planets.limits.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight).register(Metrics.globalRegistry);
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		
+		if (rateLimiter != null) {
+			long waitNanos = rateLimiter.tryAcquire(clientKeys.of(request));
+			if (waitNanos > 0) {
+				rateLimited.increment();
+				reject(response, HttpStatus.TOO_MANY_REQUESTS, (waitNanos + 999_999_999L) / 1_000_000_000L, "Rate limit exceeded");
+				return;
+			}
+		}
+		
+		if (!concurrencyLimiter.tryAcquire()) {
+			overloaded.increment();
+			reject(response, HttpStatus.SERVICE_UNAVAILABLE, 1, "Server overloaded, try again");
+			return;
+		}
+		long start = System.nanoTime();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			concurrencyLimiter.release(System.nanoTime() - start);
+		}
+	}
+	
+	private void reject(HttpServletResponse response, HttpStatus status, long retryAfterSeconds, String message) throws IOException {
+		response.setStatus(status.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+		response.setContentType("text/plain");
+		response.getWriter().write(message);
+	}
+
+}
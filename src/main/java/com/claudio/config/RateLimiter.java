@@ -0,0 +1,47 @@
+package com.claudio.config;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Token bucket por chave (API key), na forma GCRA: cada chave guarda só o instante teórico da próxima
+ * requisição num AtomicLong, então consumir um token é um único CAS, sem lock. As chaves ficam espalhadas
+ * pelas partições do mapa do Caffeine e expiram sem uso.
+ */
+public class RateLimiter {
+	
+	private final long intervalNanos;
+	
+	private final long burstNanos;
+	
+	private final Cache<String, AtomicLong> buckets;
+	
+	public RateLimiter(double permitsPerSecond, int burst, int maxKeys, Duration idleExpiry) {
+		this.intervalNanos = (long) (1_000_000_000L / permitsPerSecond);
+		this.burstNanos = intervalNanos * Math.max(1, burst);
+		this.buckets = Caffeine.newBuilder().maximumSize(maxKeys).expireAfterAccess(idleExpiry).build();
+	}
+	
+	/**
+	 * 0 quando há token; senão, quantos nanossegundos até o próximo.
+	 */
+	public long tryAcquire(String key) {
+		long now = System.nanoTime();
+		AtomicLong theoreticalArrival = buckets.get(key, k -> new AtomicLong(now));
+		for (;;) {
+			long current = theoreticalArrival.get();
+			long next = Math.max(current, now) + intervalNanos;
+			long excess = next - now - burstNanos;
+			if (excess > 0) {
+				return excess;
+			}
+			if (theoreticalArrival.compareAndSet(current, next)) {
+				return 0;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.claudio.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pools do primário e das réplicas. As réplicas são escolhidas em round-robin entre as saudáveis;
+ * a checagem periódica tira do rodízio quem não responde e devolve quem voltou.
+ * O roteamento usa os alvos (pools, ou pools embrulhados via wrapPools); checagem e close vão direto ao Hikari.
+ */
+public class ReadWriteDataSources {
+	
+	private static final Logger log = LoggerFactory.getLogger(ReadWriteDataSources.class);
+	
+	private final HikariDataSource primary;
+	
+	private final List<HikariDataSource> replicas;
+	
+	private final int validationTimeoutSeconds;
+	
+	private final AtomicInteger next = new AtomicInteger();
+	
+	//Fora do scheduler compartilhado: uma réplica que não responde segura só a própria checagem
+	private final ExecutorService healthChecks = Executors.newVirtualThreadPerTaskExecutor();
+	
+	private final AtomicBoolean checking = new AtomicBoolean();
+	
+	private DataSource primaryTarget;
+	
+	private List<DataSource> replicaTargets;
+	
+	//Trocada inteira a cada checagem: quem escolhe a réplica não precisa de lock
+	private volatile List<Integer> healthy;
+	
+	public ReadWriteDataSources(HikariDataSource primary, List<HikariDataSource> replicas, int validationTimeoutSeconds) {
+		this.primary = primary;
+		this.replicas = List.copyOf(replicas);
+		this.validationTimeoutSeconds = validationTimeoutSeconds;
+		this.healthy = IntStream.range(0, replicas.size()).boxed().toList();
+		this.primaryTarget = primary;
+		this.replicaTargets = List.copyOf(replicas);
+	}
+	
+	/**
+	 * Embrulha cada pool (ex.: BoundedDataSource, com o teto daquele pool). Precisa vir antes de o roteamento ser montado.
+	 */
+	public void wrapPools(Function<HikariDataSource, DataSource> wrapper) {
+		primaryTarget = wrapper.apply(primary);
+		replicaTargets = replicas.stream().map(wrapper).toList();
+	}
+	
+	public DataSource primaryTarget() {
+		return primaryTarget;
+	}
+	
+	public List<DataSource> replicaTargets() {
+		return replicaTargets;
+	}
+	
+	public HikariDataSource primary() {
+		return primary;
+	}
+	
+	public List<HikariDataSource> replicas() {
+		return replicas;
+	}
+	
+	/**
+	 * Índice da próxima réplica saudável; vazio quando nenhuma está disponível (leitura vai ao primário).
+	 */
+	public Optional<Integer> nextReplica() {
+		List<Integer> candidates = healthy;
+		if (candidates.isEmpty()) {
+			return Optional.empty();
+		}
+		return Optional.of(candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size())));
+	}
+	
+	//Só dispara a checagem; se a anterior ainda não terminou, espera a próxima rodada
+	@Scheduled(fixedDelayString = "${planets.replicas.health-check-interval:PT5S}")
+	public void scheduleHealthCheck() {
+		if (checking.compareAndSet(false, true)) {
+			healthChecks.execute(() -> {
+				try {
+					checkHealth();
+				} finally {
+					checking.set(false);
+				}
+			});
+		}
+	}
+	
+	//As réplicas são checadas em paralelo
+	public void checkHealth() {
+		List<Future<Boolean>> checks = replicas.stream()
+				.map(replica -> healthChecks.submit(() -> isHealthy(replica)))
+				.toList();
+		List<Integer> nowHealthy = IntStream.range(0, replicas.size())
+				.filter(replica -> passed(checks.get(replica)))
+				.boxed().toList();
+		if (!nowHealthy.equals(healthy)) {
+			log.warn("Healthy read replicas changed from {} to {}", healthy, nowHealthy);
+		}
+		healthy = nowHealthy;
+	}
+	
+	@PreDestroy
+	public void close() {
+		healthChecks.shutdownNow();
+		replicas.forEach(HikariDataSource::close);
+		primary.close();
+	}
+	
+	private static boolean passed(Future<Boolean> check) {
+		try {
+			return check.get();
+		} catch (ExecutionException ex) {
+			return false;
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
+	private boolean isHealthy(DataSource replica) {
+		try (Connection connection = replica.getConnection()) {
+			return connection.isValid(validationTimeoutSeconds);
+		} catch (SQLException ex) {
+			return false;
+		}
+	}
+
+}
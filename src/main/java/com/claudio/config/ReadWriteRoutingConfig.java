@@ -0,0 +1,97 @@
+package com.claudio.config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Réplicas de leitura (planets.replicas.urls): transações readOnly vão às réplicas, o resto ao primário
+ * (spring.datasource.url). Cada réplica tem seu pool, com as mesmas credenciais e spring.datasource.hikari.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "planets.replicas.urls")
+public class ReadWriteRoutingConfig {
+	
+	@Bean
+	public ReadWriteDataSources readWriteDataSources(DataSourceProperties properties, Environment environment,
+			@Value("${planets.replicas.urls}") List<String> replicaUrls) {
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (int replica = 0; replica < replicaUrls.size(); replica++) {
+			replicas.add(pool(properties, environment, replicaUrls.get(replica).trim(), "replica-" + replica));
+		}
+		HikariDataSource primary = pool(properties, environment, properties.determineUrl(), "primary");
+		return new ReadWriteDataSources(primary, replicas, 1);
+	}
+	
+	//O proxy lazy adia a escolha da conexão até o primeiro comando, quando o read-only da transação já está definido
+	@Bean
+	@Primary
+	public DataSource dataSource(ReadWriteDataSources dataSources) {
+		return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(dataSources));
+	}
+	
+	@Bean
+	public ReadYourWrites readYourWrites(@Value("${planets.replicas.sticky-window:5s}") Duration stickyWindow,
+			@Value("${planets.replicas.sticky-max-clients:100000}") int maxClients) {
+		return new ReadYourWrites(stickyWindow, maxClients);
+	}
+	
+	//Como o Boot faz com os DataSources que são beans: os pools daqui não são, então ficariam sem as métricas hikaricp.*
+	@Bean
+	public MeterBinder readWritePoolMetrics(ReadWriteDataSources dataSources) {
+		return registry -> Stream.concat(Stream.of(dataSources.primary()), dataSources.replicas().stream())
+				.filter(pool -> pool.getMetricRegistry() == null && pool.getMetricsTrackerFactory() == null)
+				.forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+	}
+	
+	//Aplicado pelo Boot ao applicationTaskExecutor (e pelo VirtualThreadConfig ao dele), que roda as tarefas async do MVC
+	@Bean
+	public TaskDecorator readYourWritesTaskDecorator() {
+		return ReadYourWrites::propagate;
+	}
+	
+	//Por fora do limite de carga (que vem depois): 429/503 não contam como escrita
+	@Bean
+	@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+	public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(ReadYourWrites readYourWrites,
+			@Value("${planets.rate-limit.header:X-API-Key}") String apiKeyHeader,
+			@Value("${planets.rate-limit.api-keys:}") Set<String> apiKeys) {
+		FilterRegistrationBean<ReadYourWritesFilter> registration = new FilterRegistrationBean<>(
+				new ReadYourWritesFilter(readYourWrites, apiKeyHeader, apiKeys));
+		registration.addUrlPatterns("/planets", "/planets/*");
+		registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 90);
+		return registration;
+	}
+	
+	private static HikariDataSource pool(DataSourceProperties properties, Environment environment, String url, String name) {
+		HikariDataSource pool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+		Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+		pool.setPoolName("planets-" + name);
+		return pool;
+	}
+
+}
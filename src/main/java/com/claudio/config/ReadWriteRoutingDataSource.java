@@ -0,0 +1,42 @@
+package com.claudio.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transações somente-leitura vão para uma réplica; escritas, leituras fora de transação e clientes
+ * que acabaram de escrever (ReadYourWrites) vão para o primário. Precisa ficar atrás de um
+ * LazyConnectionDataSourceProxy: a conexão só pode ser escolhida depois que a transação marcou o read-only.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+	
+	private static final String PRIMARY = "primary";
+	
+	private final ReadWriteDataSources dataSources;
+	
+	public ReadWriteRoutingDataSource(ReadWriteDataSources dataSources) {
+		this.dataSources = dataSources;
+		
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, dataSources.primaryTarget());
+		for (int replica = 0; replica < dataSources.replicaTargets().size(); replica++) {
+			targets.put(replica, dataSources.replicaTargets().get(replica));
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(dataSources.primaryTarget());
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+	
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadYourWrites.isPinnedToPrimary()) {
+			return PRIMARY;
+		}
+		return dataSources.nextReplica().<Object>map(replica -> replica).orElse(PRIMARY);
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.claudio.config;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Read-your-writes com réplicas: por uma janela curta depois de um create/remove, as leituras do mesmo cliente
+ * vão ao primário (a réplica pode ainda não ter recebido a escrita). A marcação vale para a thread da requisição.
+ */
+public class ReadYourWrites {
+	
+	private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+	
+	//A entrada expira sozinha ao fim da janela
+	private final Cache<String, Boolean> recentWriters;
+	
+	public ReadYourWrites(Duration window, int maxClients) {
+		this.recentWriters = Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maxClients).build();
+	}
+	
+	public static boolean isPinnedToPrimary() {
+		return Boolean.TRUE.equals(PINNED.get());
+	}
+	
+	/**
+	 * Roda a leitura no primário mesmo dentro de transação readOnly: cargas que preenchem um cache compartilhado
+	 * não podem vir de uma réplica atrasada (um vazio ficaria cacheado até expirar).
+	 */
+	public static <T> T onPrimary(Supplier<T> read) {
+		boolean pinned = isPinnedToPrimary();
+		pinToPrimary(true);
+		try {
+			return read.get();
+		} finally {
+			pinToPrimary(pinned);
+		}
+	}
+	
+	static void pinToPrimary(boolean pinned) {
+		if (pinned) {
+			PINNED.set(Boolean.TRUE);
+		} else {
+			PINNED.remove();
+		}
+	}
+	
+	/**
+	 * Leva a marcação da requisição para tarefas assíncronas (ex.: o corpo de /planets/stream, escrito noutra thread
+	 * depois que o filtro já limpou a marcação).
+	 */
+	public static Runnable propagate(Runnable task) {
+		boolean pinned = isPinnedToPrimary();
+		return () -> {
+			pinToPrimary(pinned);
+			try {
+				task.run();
+			} finally {
+				pinToPrimary(false);
+			}
+		};
+	}
+	
+	public boolean wroteRecently(String client) {
+		return recentWriters.getIfPresent(client) != null;
+	}
+	
+	public void recordWrite(String client) {
+		recentWriters.put(client, Boolean.TRUE);
+	}
+
+}
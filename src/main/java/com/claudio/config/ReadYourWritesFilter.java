@@ -0,0 +1,46 @@
+package com.claudio.config;
+
+import java.io.IOException;
+import java.util.Set;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Fixa no primário as requisições de quem escreveu há pouco e registra as escritas bem-sucedidas.
+ * O cliente é identificado como no limite de taxa (ClientKeys): uma API key configurada ou o endereço de origem.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+	
+	private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+	
+	private final ReadYourWrites readYourWrites;
+	
+	private final ClientKeys clientKeys;
+	
+	public ReadYourWritesFilter(ReadYourWrites readYourWrites, String apiKeyHeader, Set<String> apiKeys) {
+		this.readYourWrites = readYourWrites;
+		this.clientKeys = new ClientKeys(apiKeyHeader, apiKeys);
+	}
+	
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		
+		String client = clientKeys.of(request);
+		ReadYourWrites.pinToPrimary(readYourWrites.wroteRecently(client));
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReadYourWrites.pinToPrimary(false);
+		}
+		if (!READ_METHODS.contains(request.getMethod()) && response.getStatus() < 400) {
+			readYourWrites.recordWrite(client);
+		}
+	}
+
+}
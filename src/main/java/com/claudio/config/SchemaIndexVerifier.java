@@ -0,0 +1,85 @@
+package com.claudio.config;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Component;
+
+/**
+ * Falha a subida se faltar algum dos índices criados pelas migrações (db/migration/{vendor}):
+ * sem eles as buscas por nome e os filtros viram varreduras da tabela inteira sem nenhum aviso.
+ */
+@Component
+@DependsOnDatabaseInitialization
+@ConditionalOnProperty(name = "planets.schema.verify-indexes", havingValue = "true", matchIfMissing = true)
+public class SchemaIndexVerifier implements InitializingBean {
+	
+	private static final List<String> TABLES = List.of("planets", "planet_climates", "planet_terrains");
+	
+	//Por banco (nome do produto em minúsculas); bancos fora da lista não são verificados
+	private static final Map<String, List<String>> REQUIRED_INDEXES = Map.of(
+			"postgresql", List.of("planets_name_lower_idx", "planets_climate_lower_idx", "planets_terrain_lower_idx",
+					"planets_climate_trgm_idx", "planets_terrain_trgm_idx",
+					"planet_climates_climate_idx", "planet_terrains_terrain_idx"),
+			"h2", List.of("planets_climate_lower_idx", "planets_terrain_lower_idx",
+					"planet_climates_climate_idx", "planet_terrains_terrain_idx"));
+	
+	private final DataSource dataSource;
+	
+	public SchemaIndexVerifier(DataSource dataSource) {
+		this.dataSource = dataSource;
+	}
+	
+	@Override
+	public void afterPropertiesSet() throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metaData = connection.getMetaData();
+			List<String> required = REQUIRED_INDEXES.get(metaData.getDatabaseProductName().toLowerCase(Locale.ROOT));
+			if (required == null) {
+				return;
+			}
+			
+			Set<String> existing = existingIndexes(connection, metaData);
+			List<String> missing = new ArrayList<>();
+			for (String index : required) {
+				if (!existing.contains(index)) {
+					missing.add(index);
+				}
+			}
+			if (!missing.isEmpty()) {
+				throw new IllegalStateException("Missing database indexes " + missing
+						+ "; run the migrations in db/migration before starting the application");
+			}
+		}
+	}
+	
+	private Set<String> existingIndexes(Connection connection, DatabaseMetaData metaData) throws SQLException {
+		Set<String> indexes = new HashSet<>();
+		for (String table : TABLES) {
+			String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+			try (ResultSet rows = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, true)) {
+				while (rows.next()) {
+					String index = rows.getString("INDEX_NAME");
+					if (index != null) {
+						indexes.add(index.toLowerCase(Locale.ROOT));
+					}
+				}
+			}
+		}
+		return indexes;
+	}
+
+}
@@ -0,0 +1,36 @@
+package com.claudio.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Substitui o show-sql: só as consultas acima de planets.slow-query.threshold vão para o log, de forma assíncrona.
+ */
+@Configuration
+@ConditionalOnProperty(name = "planets.slow-query.enabled", havingValue = "true")
+public class SlowQueryConfig {
+	
+	@Bean
+	public static BeanPostProcessor slowQueryDataSourcePostProcessor(Environment environment) {
+		Duration threshold = environment.getProperty("planets.slow-query.threshold", Duration.class, Duration.ofMillis(200));
+		int capacity = environment.getProperty("planets.slow-query.buffer-size", Integer.class, 1024);
+		
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource && !(bean instanceof SlowQueryDataSource)) {
+					return new SlowQueryDataSource(dataSource, new SlowQueryLog(threshold, capacity));
+				}
+				return bean;
+			}
+		};
+	}
+
+}
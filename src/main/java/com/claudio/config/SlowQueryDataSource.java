@@ -0,0 +1,137 @@
+package com.claudio.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.BitSet;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Mede cada execução de Statement/PreparedStatement e repassa ao SlowQueryLog o SQL, quantos parâmetros
+ * foram ligados, a duração do execute e as linhas (lidas do ResultSet ou afetadas pelo update).
+ */
+public class SlowQueryDataSource extends DelegatingDataSource {
+	
+	private final SlowQueryLog slowQueryLog;
+	
+	public SlowQueryDataSource(DataSource target, SlowQueryLog slowQueryLog) {
+		super(target);
+		this.slowQueryLog = slowQueryLog;
+	}
+	
+	@Override
+	public Connection getConnection() throws SQLException {
+		return connection(super.getConnection());
+	}
+	
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return connection(super.getConnection(username, password));
+	}
+	
+	private Connection connection(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+				(proxy, method, args) -> {
+					Object result = invoke(connection, method, args);
+					if (result instanceof Statement statement) {
+						String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+						return statement(statement, sql);
+					}
+					return result;
+				});
+	}
+	
+	private Statement statement(Statement statement, String preparedSql) {
+		Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+				: statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+		Execution execution = new Execution(preparedSql);
+		
+		return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { type },
+				(proxy, method, args) -> {
+					String name = method.getName();
+					if (name.startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer index
+							&& PreparedStatement.class.isAssignableFrom(method.getDeclaringClass())) {
+						execution.binds.set(index);
+					} else if ("clearParameters".equals(name)) {
+						execution.binds.clear();
+					}
+					if (!name.startsWith("execute")) {
+						return invoke(statement, method, args);
+					}
+					
+					String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : execution.sql;
+					long start = System.nanoTime();
+					Object result = invoke(statement, method, args);
+					long duration = System.nanoTime() - start;
+					
+					if (result instanceof ResultSet resultSet) {
+						return resultSet(resultSet, sql, execution.binds.cardinality(), duration);
+					}
+					slowQueryLog.record(sql, execution.binds.cardinality(), duration, rows(result));
+					return result;
+				});
+	}
+	
+	//Só registra no close, quando já se sabe quantas linhas foram lidas; a duração é a do execute
+	private ResultSet resultSet(ResultSet resultSet, String sql, int binds, long duration) {
+		long[] rows = new long[1];
+		boolean[] recorded = new boolean[1];
+		return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+				(proxy, method, args) -> {
+					Object result = invoke(resultSet, method, args);
+					if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+						rows[0]++;
+					} else if ("close".equals(method.getName()) && !recorded[0]) {
+						recorded[0] = true;
+						slowQueryLog.record(sql, binds, duration, rows[0]);
+					}
+					return result;
+				});
+	}
+	
+	private static long rows(Object result) {
+		if (result instanceof Number count) {
+			return count.longValue();
+		}
+		long rows = 0;
+		if (result instanceof int[] counts) {
+			for (int count : counts) {
+				rows += Math.max(count, 0);
+			}
+		} else if (result instanceof long[] counts) {
+			for (long count : counts) {
+				rows += Math.max(count, 0);
+			}
+		}
+		return rows;
+	}
+	
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException ex) {
+			throw ex.getTargetException();
+		}
+	}
+	
+	private static class Execution {
+		
+		private final String sql;
+		
+		private final BitSet binds = new BitSet();
+		
+		Execution(String sql) {
+			this.sql = sql;
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.claudio.config;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.claudio.domain.PlanetService;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Log de consultas lentas: quem executou a consulta só faz um offer num buffer circular limitado
+ * (cheio = entrada descartada e contada); uma thread daemon normaliza o SQL e escreve no log.
+ */
+public class SlowQueryLog {
+	
+	public static final String DROPPED_METRIC = "planets.slow-query.dropped";
+	
+	private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+	
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(\\.\\d+)?\\b");
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+	
+	private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+	
+	public record Entry(String sql, int binds, long durationMicros, long rows, String caller) {
+	}
+	
+	private final long thresholdNanos;
+	
+	private final BlockingQueue<Entry> buffer;
+	
+	private final LongAdder dropped = new LongAdder();
+	
+	public SlowQueryLog(Duration threshold, int capacity) {
+		this.thresholdNanos = threshold.toNanos();
+		this.buffer = new ArrayBlockingQueue<>(capacity);
+		FunctionCounter.builder(DROPPED_METRIC, dropped, LongAdder::sum).register(Metrics.globalRegistry);
+		Thread writer = new Thread(this::write, "slow-query-log");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Chamado na thread da requisição: abaixo do limite não faz nada; acima, só captura o chamador e enfileira.
+	 */
+	public void record(String sql, int binds, long durationNanos, long rows) {
+		if (durationNanos < thresholdNanos) {
+			return;
+		}
+		if (!buffer.offer(new Entry(sql, binds, durationNanos / 1_000, rows, caller()))) {
+			dropped.increment();
+		}
+	}
+	
+	public long dropped() {
+		return dropped.sum();
+	}
+	
+	//Literais viram "?" para que consultas iguais com valores diferentes tenham o mesmo formato
+	static String shape(String sql) {
+		String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+		shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+		return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+	}
+	
+	//Primeiro método do PlanetService na pilha (o proxy do Spring é subclasse, então a classe é comparada exatamente)
+	private static String caller() {
+		return STACK_WALKER.walk(frames -> frames
+				.filter(frame -> frame.getDeclaringClass() == PlanetService.class)
+				.findFirst()
+				.map(frame -> "PlanetService." + frame.getMethodName())
+				.orElse("-"));
+	}
+	
+	private void write() {
+		while (true) {
+			try {
+				Entry entry = buffer.take();
+				log.warn("slow query: durationMs={} rows={} binds={} caller={} sql=\"{}\"",
+						entry.durationMicros() / 1_000.0, entry.rows(), entry.binds(), entry.caller(), shape(entry.sql()));
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException ex) {
+				//Nunca derruba a thread do log
+			}
+		}
+	}
+
+}
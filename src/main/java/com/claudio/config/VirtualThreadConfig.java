@@ -0,0 +1,72 @@
+package com.claudio.config;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Modo opcional (planets.virtual-threads.enabled=true): cada requisição do Tomcat, e as tarefas async
+ * do MVC (ex.: /planets/stream), rodam numa virtual thread. Bloquear no JDBC deixa de prender uma thread de plataforma.
+ */
+@Configuration
+@ConditionalOnProperty(name = "planets.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+	
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+	}
+	
+	@Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+	public AsyncTaskExecutor applicationTaskExecutor(ObjectProvider<TaskDecorator> taskDecorator) {
+		TaskExecutorAdapter executor = new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+		taskDecorator.ifUnique(executor::setTaskDecorator);
+		return executor;
+	}
+	
+	@Bean
+	public static BeanPostProcessor boundedDataSourcePostProcessor(Environment environment) {
+		Duration acquireTimeout = environment.getProperty("planets.virtual-threads.connection-acquire-timeout",
+				Duration.class, Duration.ofSeconds(2));
+		
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				//Com réplicas, cada pool ganha o seu limite; o roteador na frente deles fica sem
+				if (bean instanceof ReadWriteDataSources dataSources) {
+					dataSources.wrapPools(pool -> new BoundedDataSource(pool, pool.getMaximumPoolSize(), acquireTimeout));
+					return bean;
+				}
+				//O Hikari pode já estar embrulhado (ex.: SlowQueryDataSource)
+				try {
+					if (bean instanceof DataSource dataSource && !(bean instanceof BoundedDataSource)
+							&& dataSource.isWrapperFor(HikariDataSource.class)
+							&& !dataSource.isWrapperFor(ReadWriteRoutingDataSource.class)) {
+						HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+						return new BoundedDataSource(dataSource, hikari.getMaximumPoolSize(), acquireTimeout);
+					}
+				} catch (SQLException ex) {
+					throw new IllegalStateException(ex);
+				}
+				return bean;
+			}
+		};
+	}
+
+}
@@ -0,0 +1,60 @@
+package com.claudio.config;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.claudio.web.PlanetProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Formatos binários por negociação de conteúdo (Accept/Content-Type): CBOR, Smile e protobuf.
+ * Entram depois do JSON, que continua sendo o padrão quando o cliente não pede nada.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class WebConfig implements WebMvcConfigurer {
+	
+	private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+	
+	//O builder do Boot é prototype: cada formato recebe as mesmas configurações do ObjectMapper de JSON
+	public WebConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+		this.objectMapperBuilder = objectMapperBuilder;
+	}
+	
+	@Override
+	public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+		converters.removeIf(converter -> converter instanceof MappingJackson2CborHttpMessageConverter
+				|| converter instanceof MappingJackson2SmileHttpMessageConverter);
+		converters.add(new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build()));
+		converters.add(new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.factory(new SmileFactory()).build()));
+		converters.add(new PlanetProtobufHttpMessageConverter());
+	}
+	
+	//A resposta de /planets depende do Accept (formato) e do Accept-Encoding (gzip): vale também para os 304.
+	//addHeader, e não setHeader: preserva o Vary de quem já passou (ex.: Origin do CORS)
+	@Override
+	public void addInterceptors(InterceptorRegistry registry) {
+		registry.addInterceptor(new HandlerInterceptor() {
+			@Override
+			public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+				response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+				return true;
+			}
+		}).addPathPatterns("/planets", "/planets/**");
+	}
+
+}
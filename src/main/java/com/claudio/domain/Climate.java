@@ -0,0 +1,18 @@
+package com.claudio.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "climates")
+public class Climate extends DictionaryEntry {
+	
+	protected Climate() {
+		
+	}
+	
+	public Climate(String name) {
+		super(name);
+	}
+
+}
@@ -0,0 +1,5 @@
+package com.claudio.domain;
+
+public interface ClimateRepository extends DictionaryRepository<Climate> {
+
+}
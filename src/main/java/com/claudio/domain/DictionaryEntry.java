@@ -0,0 +1,35 @@
+package com.claudio.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Entrada de um dicionário de tokens (climate/terrain): o token normalizado e um código smallint,
+ * que é o que vai para as tabelas de junção e para os filtros.
+ */
+@Getter
+@Setter
+@MappedSuperclass
+public abstract class DictionaryEntry {
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Short id;
+	
+	@Column(nullable = false, unique = true)
+	private String name;
+	
+	protected DictionaryEntry() {
+		
+	}
+	
+	protected DictionaryEntry(String name) {
+		this.name = name;
+	}
+
+}
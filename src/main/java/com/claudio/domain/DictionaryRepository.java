@@ -0,0 +1,13 @@
+package com.claudio.domain;
+
+import java.util.Optional;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+@NoRepositoryBean
+public interface DictionaryRepository<T extends DictionaryEntry> extends CrudRepository<T, Short> {
+	
+	Optional<T> findByName(String name);
+
+}
@@ -0,0 +1,41 @@
+package com.claudio.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Resultado de uma importação em massa: totais e, por linha, apenas o que não foi criado.
+ */
+@Getter
+public class ImportReport {
+	
+	public enum Status { CONFLICT, INVALID }
+	
+	public record Row(int row, String name, Status status, String message) {
+	}
+	
+	private int created;
+	
+	private int conflicts;
+	
+	private int invalid;
+	
+	private final List<Row> rejected = new ArrayList<>();
+	
+	void created() {
+		created++;
+	}
+	
+	void conflict(int row, String name) {
+		conflicts++;
+		rejected.add(new Row(row, name, Status.CONFLICT, "Planet name already exists"));
+	}
+	
+	void invalid(int row, String name, String message) {
+		invalid++;
+		rejected.add(new Row(row, name, Status.INVALID, message));
+	}
+
+}
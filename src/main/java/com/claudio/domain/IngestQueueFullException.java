@@ -0,0 +1,14 @@
+package com.claudio.domain;
+
+/**
+ * Fila da ingestão assíncrona cheia: o cliente deve tentar de novo mais tarde.
+ */
+public class IngestQueueFullException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public IngestQueueFullException() {
+		super("Ingest queue is full, try again");
+	}
+
+}
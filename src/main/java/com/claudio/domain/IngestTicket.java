@@ -0,0 +1,22 @@
+package com.claudio.domain;
+
+/**
+ * Situação de um planeta aceito pela ingestão assíncrona (POST /planets com planets.ingest.async=true).
+ */
+public record IngestTicket(String id, Status status, String name, Long planetId, String message) {
+	
+	public enum Status { PENDING, CREATED, CONFLICT, INVALID, FAILED }
+	
+	static IngestTicket pending(String id, String name) {
+		return new IngestTicket(id, Status.PENDING, name, null, null);
+	}
+	
+	IngestTicket created(Long planetId) {
+		return new IngestTicket(id, Status.CREATED, name, planetId, null);
+	}
+	
+	IngestTicket rejected(Status status, String message) {
+		return new IngestTicket(id, status, name, null, message);
+	}
+
+}
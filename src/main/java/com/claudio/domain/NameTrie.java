@@ -0,0 +1,154 @@
+package com.claudio.domain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Trie compacto (filhos em arrays ordenados) sobre os nomes em minúsculas, guardando os ids dos planetas.
+ * Não é thread-safe: o PlanetIndex controla o acesso.
+ */
+class NameTrie {
+	
+	private static final char[] NO_KEYS = {};
+	private static final Node[] NO_CHILDREN = {};
+	private static final long[] NO_IDS = {};
+	
+	private static final class Node {
+		char[] keys = NO_KEYS;
+		Node[] children = NO_CHILDREN;
+		long[] ids = NO_IDS;
+		
+		Node child(char key) {
+			int i = Arrays.binarySearch(keys, key);
+			return i >= 0 ? children[i] : null;
+		}
+		
+		Node childOrCreate(char key) {
+			int i = Arrays.binarySearch(keys, key);
+			if (i >= 0) {
+				return children[i];
+			}
+			int at = -i - 1;
+			Node child = new Node();
+			keys = insert(keys, at, key);
+			Node[] grown = new Node[children.length + 1];
+			System.arraycopy(children, 0, grown, 0, at);
+			grown[at] = child;
+			System.arraycopy(children, at, grown, at + 1, children.length - at);
+			children = grown;
+			return child;
+		}
+		
+		void removeChild(char key) {
+			int at = Arrays.binarySearch(keys, key);
+			char[] shrunkKeys = new char[keys.length - 1];
+			System.arraycopy(keys, 0, shrunkKeys, 0, at);
+			System.arraycopy(keys, at + 1, shrunkKeys, at, keys.length - at - 1);
+			Node[] shrunk = new Node[children.length - 1];
+			System.arraycopy(children, 0, shrunk, 0, at);
+			System.arraycopy(children, at + 1, shrunk, at, children.length - at - 1);
+			keys = shrunkKeys;
+			children = shrunk;
+		}
+		
+		boolean isEmpty() {
+			return ids.length == 0 && keys.length == 0;
+		}
+		
+		private static char[] insert(char[] array, int at, char value) {
+			char[] grown = new char[array.length + 1];
+			System.arraycopy(array, 0, grown, 0, at);
+			grown[at] = value;
+			System.arraycopy(array, at, grown, at + 1, array.length - at);
+			return grown;
+		}
+	}
+	
+	private Node root = new Node();
+	
+	static String normalize(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+	
+	void clear() {
+		root = new Node();
+	}
+	
+	void add(String name, long id) {
+		Node node = root;
+		for (char key : normalize(name).toCharArray()) {
+			node = node.childOrCreate(key);
+		}
+		node.ids = Arrays.copyOf(node.ids, node.ids.length + 1);
+		node.ids[node.ids.length - 1] = id;
+	}
+	
+	void remove(String name, long id) {
+		remove(root, normalize(name), 0, id);
+	}
+	
+	private boolean remove(Node node, String name, int depth, long id) {
+		if (depth == name.length()) {
+			node.ids = Arrays.stream(node.ids).filter(existing -> existing != id).toArray();
+		} else {
+			char key = name.charAt(depth);
+			Node child = node.child(key);
+			if (child != null && remove(child, name, depth + 1, id)) {
+				node.removeChild(key);
+			}
+		}
+		return node.isEmpty();
+	}
+	
+	/**
+	 * Ids cujo nome começa com a consulta a até maxEdits edições (Levenshtein sobre o prefixo).
+	 * Uma passada por distância (0, 1, ...): os resultados saem por distância e, dentro dela, em ordem alfabética,
+	 * e a busca para assim que atinge o limite.
+	 */
+	List<Long> search(String query, int maxEdits, int limit) {
+		char[] q = normalize(query).toCharArray();
+		Set<Long> found = new LinkedHashSet<>();
+		
+		for (int distance = 0; distance <= maxEdits && found.size() < limit; distance++) {
+			int[] firstRow = new int[q.length + 1];
+			for (int j = 0; j <= q.length; j++) {
+				firstRow[j] = j;
+			}
+			search(root, q, firstRow, firstRow[q.length], distance, found, limit);
+		}
+		return new ArrayList<>(found);
+	}
+	
+	private void search(Node node, char[] q, int[] row, int best, int maxEdits, Set<Long> found, int limit) {
+		if (best <= maxEdits) {
+			for (long id : node.ids) {
+				if (found.size() >= limit) {
+					return;
+				}
+				found.add(id);
+			}
+		}
+		
+		for (int i = 0; i < node.keys.length && found.size() < limit; i++) {
+			char key = node.keys[i];
+			int[] next = new int[q.length + 1];
+			next[0] = row[0] + 1;
+			int rowMin = next[0];
+			for (int j = 1; j <= q.length; j++) {
+				int substitution = row[j - 1] + (q[j - 1] == key ? 0 : 1);
+				next[j] = Math.min(Math.min(next[j - 1] + 1, row[j] + 1), substitution);
+				rowMin = Math.min(rowMin, next[j]);
+			}
+			int nextBest = Math.min(best, next[q.length]);
+			//Sem chance de casar nesta subárvore: nem o prefixo já casou nem alguma célula está dentro do limite
+			if (nextBest <= maxEdits || rowMin <= maxEdits) {
+				search(node.children[i], q, next, nextBest, maxEdits, found, limit);
+			}
+		}
+	}
+
+}
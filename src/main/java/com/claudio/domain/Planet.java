@@ -1,20 +1,36 @@
 package com.claudio.domain;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.JoinTable;
+import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotEmpty;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Data
 @Entity
 @Table(name = "planets")
 public class Planet {
+	//SEQUENCE (e não IDENTITY) para que o Hibernate consiga agrupar os inserts em batch
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "planets_seq")
+	@SequenceGenerator(name = "planets_seq", sequenceName = "planets_seq", allocationSize = 50)
 	private Long id;
 	
 	@NotEmpty
@@ -29,6 +45,33 @@ public class Planet {
 	@Column(nullable = false)
 	private String terrain;
 	
+	//Base dos ETags; não faz parte do JSON nem da igualdade (o mesmo planeta, lido em momentos diferentes)
+	@JsonIgnore
+	@EqualsAndHashCode.Exclude
+	@Version
+	private Long version;
+	
+	//Tokens de climate/terrain por código (tabelas de junção), usados pelos filtros; o JSON continua com o texto
+	@JsonIgnore
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	@ManyToMany(fetch = FetchType.LAZY)
+	@JoinTable(name = "planet_climates",
+			joinColumns = @JoinColumn(name = "planet_id"),
+			inverseJoinColumns = @JoinColumn(name = "climate_id"),
+			indexes = @Index(name = "planet_climates_climate_idx", columnList = "climate_id, planet_id"))
+	private Set<Climate> climates = new HashSet<>();
+	
+	@JsonIgnore
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	@ManyToMany(fetch = FetchType.LAZY)
+	@JoinTable(name = "planet_terrains",
+			joinColumns = @JoinColumn(name = "planet_id"),
+			inverseJoinColumns = @JoinColumn(name = "terrain_id"),
+			indexes = @Index(name = "planet_terrains_terrain_idx", columnList = "terrain_id, planet_id"))
+	private Set<Terrain> terrains = new HashSet<>();
+	
 	public Planet() {
 		
 	}
@@ -45,5 +88,14 @@ public class Planet {
 		this.climate = climate;
 		this.terrain = terrain;
 	}	
+	
+	public Planet(Long id, String name, String climate, String terrain, Long version) {
+		this(id, name, climate, terrain);
+		this.version = version;
+	}
+	
+	public long currentVersion() {
+		return version == null ? 0L : version;
+	}
 
 }
@@ -0,0 +1,55 @@
+package com.claudio.domain;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Evento do outbox: qual planeta mudou, como e em qual nó. O nome (em minúsculas) só vem nas criações;
+ * numa remoção por id o cache por nome é limpo por inteiro, como no próprio nó.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "planet_changes")
+public class PlanetChange {
+	
+	public enum Type { CREATED, DELETED }
+	
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+	
+	@Column(name = "planet_id", nullable = false)
+	private Long planetId;
+	
+	private String name;
+	
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private Type type;
+	
+	@Column(nullable = false, length = 36)
+	private String origin;
+	
+	@Column(name = "changed_at", nullable = false)
+	private Instant changedAt;
+	
+	public PlanetChange(Long planetId, String name, Type type, String origin) {
+		this.planetId = planetId;
+		this.name = name;
+		this.type = type;
+		this.origin = origin;
+		this.changedAt = Instant.now();
+	}
+
+}
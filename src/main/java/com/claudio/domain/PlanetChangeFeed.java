@@ -0,0 +1,90 @@
+package com.claudio.domain;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sequência das criações/remoções vistas por este nó (locais, via PlanetChangeLog, e dos outros nós, via
+ * PlanetChangePoller) num buffer circular: quem se reconecta com o último seq recebe o que perdeu,
+ * enquanto ainda estiver no buffer.
+ */
+@Component
+public class PlanetChangeFeed {
+	
+	private final PlanetEvent[] ring;
+	
+	//Começa no relógio (µs): um seq de antes de um restart é sempre menor que o primeiro deste processo
+	private final long firstSeq = System.currentTimeMillis() * 1000;
+	private long lastSeq = firstSeq;
+	
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	
+	public PlanetChangeFeed(@Value("${planets.changes.feed.buffer-size:10000}") int bufferSize) {
+		this.ring = new PlanetEvent[Math.max(1, bufferSize)];
+	}
+	
+	/**
+	 * Avisado a cada evento novo (na thread de quem publicou: não deve bloquear).
+	 */
+	public void addListener(Runnable listener) {
+		listeners.add(listener);
+	}
+	
+	public void created(Planet planet) {
+		publish(PlanetChange.Type.CREATED, planet.getId(),
+				new Planet(planet.getId(), planet.getName(), planet.getClimate(), planet.getTerrain()));
+	}
+	
+	public void deleted(Long id) {
+		publish(PlanetChange.Type.DELETED, id, null);
+	}
+	
+	public synchronized long lastSeq() {
+		return lastSeq;
+	}
+	
+	/**
+	 * Eventos depois de after; vazio quando after já saiu do buffer (ou não é deste processo) e o cliente precisa recomeçar.
+	 */
+	public synchronized Optional<List<PlanetEvent>> since(long after) {
+		long oldest = Math.max(firstSeq, lastSeq - ring.length);
+		if (after < oldest || after > lastSeq) {
+			return Optional.empty();
+		}
+		List<PlanetEvent> events = new ArrayList<>((int) (lastSeq - after));
+		for (long seq = after + 1; seq <= lastSeq; seq++) {
+			events.add(ring[(int) (seq % ring.length)]);
+		}
+		return Optional.of(events);
+	}
+	
+	//Dentro de uma transação, só depois do commit: um rollback não chega aos assinantes
+	private void publish(PlanetChange.Type type, Long id, Planet planet) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					append(type, id, planet);
+				}
+			});
+		} else {
+			append(type, id, planet);
+		}
+	}
+	
+	private void append(PlanetChange.Type type, Long id, Planet planet) {
+		synchronized (this) {
+			lastSeq++;
+			ring[(int) (lastSeq % ring.length)] = new PlanetEvent(lastSeq, type, id, planet);
+		}
+		listeners.forEach(Runnable::run);
+	}
+
+}
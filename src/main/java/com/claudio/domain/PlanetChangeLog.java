@@ -0,0 +1,69 @@
+package com.claudio.domain;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Escreve no outbox (planet_changes). Só roda dentro da transação da própria alteração:
+ * o evento existe se, e somente se, a alteração foi gravada. Também alimenta o feed local e a versão da coleção
+ * no PlanetIndex (depois do commit).
+ */
+@Component
+public class PlanetChangeLog {
+	
+	private final PlanetChangeRepository changeRepository;
+	
+	private final PlanetChangeFeed changeFeed;
+	
+	private final PlanetIndex planetIndex;
+	
+	//Identifica este nó: os eventos dele já foram aplicados localmente e o poller os ignora
+	private final String origin = UUID.randomUUID().toString();
+	
+	public PlanetChangeLog(PlanetChangeRepository changeRepository, PlanetChangeFeed changeFeed, PlanetIndex planetIndex) {
+		this.changeRepository = changeRepository;
+		this.changeFeed = changeFeed;
+		this.planetIndex = planetIndex;
+	}
+	
+	public String getOrigin() {
+		return origin;
+	}
+	
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void created(Iterable<Planet> planets) {
+		List<PlanetChange> changes = new ArrayList<>();
+		for (Planet planet : planets) {
+			changes.add(new PlanetChange(planet.getId(), planet.getName().toLowerCase(Locale.ROOT), PlanetChange.Type.CREATED, origin));
+			changeFeed.created(planet);
+		}
+		changed(changeRepository.saveAll(changes));
+	}
+	
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void deleted(Collection<Long> ids) {
+		changed(changeRepository.saveAll(ids.stream()
+				.map(id -> new PlanetChange(id, null, PlanetChange.Type.DELETED, origin))
+				.toList()));
+		ids.forEach(changeFeed::deleted);
+	}
+	
+	//O id do último evento vira a versão da coleção neste nó, até o poller alcançá-lo
+	private void changed(Iterable<PlanetChange> saved) {
+		long last = 0;
+		for (PlanetChange change : saved) {
+			last = Math.max(last, change.getId());
+		}
+		if (last > 0) {
+			planetIndex.changed(last);
+		}
+	}
+
+}
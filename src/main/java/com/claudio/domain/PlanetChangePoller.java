@@ -0,0 +1,160 @@
+package com.claudio.domain;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Aplica neste nó as alterações feitas pelos outros nós (outbox planet_changes): limpa as entradas dos caches
+ * e atualiza o índice em memória e o feed de alterações, com defasagem limitada ao intervalo de polling.
+ * 
+ * Ids do outbox podem ser commitados fora de ordem (transações concorrentes): o watermark só avança por ids
+ * contíguos, e um buraco (rollback) é abandonado depois de planets.changes.gap-timeout.
+ */
+@Component
+@ConditionalOnProperty(name = "planets.read-only", havingValue = "false", matchIfMissing = true)
+public class PlanetChangePoller {
+	
+	private final PlanetChangeRepository changeRepository;
+	
+	private final PlanetRepository planetRepository;
+	
+	private final PlanetIndex planetIndex;
+	
+	private final PlanetChangeLog changeLog;
+	
+	private final PlanetChangeFeed changeFeed;
+	
+	private final CacheManager cacheManager;
+	
+	private final int batchSize;
+	
+	private final Duration gapTimeout;
+	
+	private final Duration retention;
+	
+	//Todos os eventos até o watermark já foram vistos; applied guarda os vistos depois de um buraco
+	private long watermark;
+	private final NavigableSet<Long> applied = new TreeSet<>();
+	private long gapSince;
+	
+	public PlanetChangePoller(PlanetChangeRepository changeRepository, PlanetRepository planetRepository,
+			PlanetIndex planetIndex, PlanetChangeLog changeLog, PlanetChangeFeed changeFeed, CacheManager cacheManager,
+			@Value("${planets.changes.batch-size:500}") int batchSize,
+			@Value("${planets.changes.gap-timeout:PT10S}") Duration gapTimeout,
+			@Value("${planets.changes.retention:PT1H}") Duration retention) {
+		this.changeRepository = changeRepository;
+		this.planetRepository = planetRepository;
+		this.planetIndex = planetIndex;
+		this.changeLog = changeLog;
+		this.changeFeed = changeFeed;
+		this.cacheManager = cacheManager;
+		this.batchSize = Math.max(1, batchSize);
+		this.gapTimeout = gapTimeout;
+		this.retention = retention;
+	}
+	
+	//Antes da carga do índice (ApplicationReadyEvent): o que mudar no meio é reaplicado, e reaplicar é idempotente
+	@PostConstruct
+	public void start() {
+		watermark = changeRepository.findLastId();
+		planetIndex.caughtUp(watermark);
+	}
+	
+	@Scheduled(fixedDelayString = "${planets.changes.poll-interval:PT1S}")
+	public synchronized void poll() {
+		List<PlanetChange> changes = changeRepository.findAfter(watermark, PageRequest.ofSize(batchSize));
+		
+		Set<Long> created = new LinkedHashSet<>();
+		for (PlanetChange change : changes) {
+			if (!applied.add(change.getId()) || changeLog.getOrigin().equals(change.getOrigin())) {
+				continue;
+			}
+			evict("planets", change.getPlanetId());
+			if (change.getName() != null) {
+				evict("planetsByName", change.getName());
+			} else {
+				clear("planetsByName");
+			}
+			
+			if (change.getType() == PlanetChange.Type.CREATED) {
+				created.add(change.getPlanetId());
+			} else {
+				created.remove(change.getPlanetId());
+				planetIndex.remove(change.getPlanetId());
+				changeFeed.deleted(change.getPlanetId());
+			}
+		}
+		
+		if (!created.isEmpty()) {
+			for (Planet planet : planetRepository.findAllById(created)) {
+				//Sem o índice carregado ainda, a carga inicial já vai trazer esse planeta
+				if (planetIndex.isLoaded()) {
+					planetIndex.add(planet);
+				}
+				changeFeed.created(planet);
+			}
+		}
+		advance();
+		//Só depois de aplicar: a versão da coleção nunca fica à frente do índice
+		planetIndex.caughtUp(watermark);
+	}
+	
+	@Scheduled(fixedDelayString = "${planets.changes.retention:PT1H}", initialDelayString = "${planets.changes.retention:PT1H}")
+	public void purge() {
+		changeRepository.deleteBefore(Instant.now().minus(retention));
+	}
+	
+	synchronized long watermark() {
+		return watermark;
+	}
+	
+	private void advance() {
+		while (!applied.isEmpty() && applied.first() == watermark + 1) {
+			watermark = applied.pollFirst();
+		}
+		if (applied.isEmpty()) {
+			gapSince = 0;
+			return;
+		}
+		
+		long now = System.nanoTime();
+		if (gapSince == 0) {
+			gapSince = now;
+		} else if (now - gapSince > gapTimeout.toNanos()) {
+			//A transação que tinha o id do buraco não commitou a tempo: considerada desfeita
+			watermark = applied.first() - 1;
+			gapSince = 0;
+			advance();
+		}
+	}
+	
+	private void evict(String cacheName, Object key) {
+		Cache cache = cacheManager.getCache(cacheName);
+		if (cache != null) {
+			cache.evict(key);
+		}
+	}
+	
+	private void clear(String cacheName) {
+		Cache cache = cacheManager.getCache(cacheName);
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+}
@@ -0,0 +1,25 @@
+package com.claudio.domain;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface PlanetChangeRepository extends CrudRepository<PlanetChange, Long> {
+	
+	@Query("select c from PlanetChange c where c.id > :after order by c.id")
+	List<PlanetChange> findAfter(Long after, Pageable pageable);
+	
+	@Query("select coalesce(max(c.id), 0) from PlanetChange c")
+	long findLastId();
+	
+	@Transactional
+	@Modifying
+	@Query("delete from PlanetChange c where c.changedAt < :before")
+	int deleteBefore(Instant before);
+
+}
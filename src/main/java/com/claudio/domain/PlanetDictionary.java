@@ -0,0 +1,105 @@
+package com.claudio.domain;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Traduz os tokens de climate/terrain ("temperate, tropical" -> [temperate, tropical]) para as entradas
+ * dos dicionários. As entradas são poucas e nunca removidas, então ficam em memória depois da primeira consulta.
+ * Tokens novos são gravados numa transação própria: um rollback de quem pediu (ex.: nome duplicado) não pode
+ * desfazer uma entrada que já está no cache. Por isso o link é chamado antes da transação de quem grava o planeta:
+ * dentro dela, cada token novo seguraria uma segunda conexão do pool enquanto a primeira espera.
+ */
+@Component
+public class PlanetDictionary {
+	
+	private final ClimateRepository climateRepository;
+	
+	private final TerrainRepository terrainRepository;
+	
+	private final Map<String, Climate> climates = new ConcurrentHashMap<>();
+	
+	private final Map<String, Terrain> terrains = new ConcurrentHashMap<>();
+	
+	private final TransactionTemplate insertTransaction;
+	
+	public PlanetDictionary(ClimateRepository climateRepository, TerrainRepository terrainRepository,
+			PlatformTransactionManager transactionManager) {
+		this.climateRepository = climateRepository;
+		this.terrainRepository = terrainRepository;
+		this.insertTransaction = new TransactionTemplate(transactionManager);
+		this.insertTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+	
+	//Preenche as associações (tabelas de junção) a partir do texto, criando os tokens novos (fora de transação)
+	public void link(Planet planet) {
+		planet.setClimates(resolve(planet.getClimate(), climates, climateRepository, Climate::new));
+		planet.setTerrains(resolve(planet.getTerrain(), terrains, terrainRepository, Terrain::new));
+	}
+	
+	/**
+	 * Códigos dos tokens de um filtro; vazio se algum token não existe no dicionário (nenhum planeta casa).
+	 */
+	public Optional<Set<Short>> climateIds(String filter) {
+		return ids(filter, climates, climateRepository);
+	}
+	
+	public Optional<Set<Short>> terrainIds(String filter) {
+		return ids(filter, terrains, terrainRepository);
+	}
+	
+	private <T extends DictionaryEntry> Set<T> resolve(String value, Map<String, T> cache,
+			DictionaryRepository<T> repository, Function<String, T> factory) {
+		Set<T> entries = new HashSet<>();
+		for (String token : PlanetIndex.tokens(value)) {
+			//Consulta e insert fora do computeIfAbsent, que bloquearia o bin do mapa durante o I/O;
+			//numa corrida, as duas threads acham a mesma linha (o insert perdedor relê) e fica a primeira
+			T entry = cache.get(token);
+			if (entry == null) {
+				T stored = repository.findByName(token).orElseGet(() -> insert(repository, factory.apply(token)));
+				T cached = cache.putIfAbsent(token, stored);
+				entry = cached != null ? cached : stored;
+			}
+			entries.add(entry);
+		}
+		return entries;
+	}
+	
+	private <T extends DictionaryEntry> T insert(DictionaryRepository<T> repository, T entry) {
+		try {
+			return insertTransaction.execute(status -> repository.save(entry));
+		} catch (DataIntegrityViolationException ex) {
+			//Outra instância criou o mesmo token ao mesmo tempo; só a transação do insert foi abortada
+			return repository.findByName(entry.getName()).orElseThrow(() -> ex);
+		}
+	}
+	
+	private <T extends DictionaryEntry> Optional<Set<Short>> ids(String filter, Map<String, T> cache,
+			DictionaryRepository<T> repository) {
+		Set<Short> ids = new HashSet<>();
+		for (String token : PlanetIndex.tokens(filter)) {
+			T entry = cache.get(token);
+			if (entry == null) {
+				Optional<T> stored = repository.findByName(token);
+				if (stored.isEmpty()) {
+					return Optional.empty();
+				}
+				entry = stored.get();
+				cache.put(token, entry);
+			}
+			ids.add(entry.getId());
+		}
+		return Optional.of(ids);
+	}
+
+}
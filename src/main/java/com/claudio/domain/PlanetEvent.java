@@ -0,0 +1,11 @@
+package com.claudio.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Evento do feed de alterações (/planets/changes): seq cresce sempre neste nó; planet só vem nas criações.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PlanetEvent(long seq, PlanetChange.Type type, Long id, Planet planet) {
+
+}
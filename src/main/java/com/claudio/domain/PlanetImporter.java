@@ -0,0 +1,176 @@
+package com.claudio.domain;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Importação em massa: valida cada linha e grava em lotes (um saveAll = uma transação = batches JDBC).
+ * Nomes repetidos são reportados por linha, sem abortar a carga.
+ */
+@Service
+public class PlanetImporter {
+	
+	private final PlanetRepository planetRepository;
+	
+	private final PlanetIndex planetIndex;
+	
+	private final PlanetDictionary planetDictionary;
+	
+	private final PlanetChangeLog planetChangeLog;
+	
+	private final CacheManager cacheManager;
+	
+	private final TransactionTemplate transactionTemplate;
+	
+	private final Validator validator;
+	
+	private final int batchSize;
+	
+	private PlanetSnapshotStore snapshotStore;
+	
+	public PlanetImporter(PlanetRepository planetRepository, PlanetIndex planetIndex, PlanetDictionary planetDictionary,
+			PlanetChangeLog planetChangeLog, CacheManager cacheManager, PlatformTransactionManager transactionManager,
+			Validator validator, @Value("${planets.import.batch-size:500}") int batchSize) {
+		this.planetRepository = planetRepository;
+		this.planetIndex = planetIndex;
+		this.planetDictionary = planetDictionary;
+		this.planetChangeLog = planetChangeLog;
+		this.cacheManager = cacheManager;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.validator = validator;
+		this.batchSize = Math.max(1, batchSize);
+	}
+	
+	@Autowired(required = false)
+	public void setSnapshotStore(PlanetSnapshotStore snapshotStore) {
+		this.snapshotStore = snapshotStore;
+	}
+	
+	public ImportReport importPlanets(Iterator<Planet> planets) {
+		if (snapshotStore != null) {
+			throw new ReadOnlyReplicaException();
+		}
+		ImportReport report = new ImportReport();
+		Set<String> namesInPayload = new HashSet<>();
+		List<Planet> batch = new ArrayList<>(batchSize);
+		List<Integer> rows = new ArrayList<>(batchSize);
+		
+		for (int row = 0; planets.hasNext(); row++) {
+			Planet planet = planets.next();
+			
+			Set<ConstraintViolation<Planet>> violations = validator.validate(planet);
+			if (!violations.isEmpty()) {
+				report.invalid(row, planet.getName(), violations.stream()
+						.map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+						.sorted().collect(Collectors.joining(", ")));
+				continue;
+			}
+			if (!namesInPayload.add(key(planet))) {
+				report.conflict(row, planet.getName());
+				continue;
+			}
+			
+			planet.setId(null);
+			planet.setVersion(null);
+			batch.add(planet);
+			rows.add(row);
+			if (batch.size() == batchSize) {
+				flush(batch, rows, report);
+			}
+		}
+		flush(batch, rows, report);
+		
+		return report;
+	}
+	
+	private void flush(List<Planet> batch, List<Integer> rows, ImportReport report) {
+		if (batch.isEmpty()) {
+			return;
+		}
+		Set<String> existingNames = planetRepository.findExistingNames(batch.stream().map(this::key).toList());
+		
+		List<Planet> toSave = new ArrayList<>(batch.size());
+		List<Integer> toSaveRows = new ArrayList<>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			Planet planet = batch.get(i);
+			if (existingNames.contains(key(planet))) {
+				report.conflict(rows.get(i), planet.getName());
+			} else {
+				planetDictionary.link(planet);
+				toSave.add(planet);
+				toSaveRows.add(rows.get(i));
+			}
+		}
+		
+		try {
+			for (Planet planetCreated : save(toSave)) {
+				created(planetCreated, report);
+			}
+		} catch (DataIntegrityViolationException ex) {
+			//Outro cliente gravou o mesmo nome entre a checagem e o insert: isola o conflito linha a linha.
+			//O lote desfeito deixou id e versão nos planetas; com a versão, o save faria merge numa cópia
+			//e o planeta original (o do ticket da fila write-behind) ficaria sem id
+			for (int i = 0; i < toSave.size(); i++) {
+				Planet planet = toSave.get(i);
+				planet.setId(null);
+				planet.setVersion(null);
+				try {
+					created(save(List.of(planet)).get(0), report);
+				} catch (DataIntegrityViolationException conflict) {
+					report.conflict(toSaveRows.get(i), planet.getName());
+				}
+			}
+		}
+		
+		batch.clear();
+		rows.clear();
+	}
+	
+	//Só as chaves do planeta criado (entradas negativas): a fila write-behind chama a importação a cada poucos ms,
+	//e limpar os caches inteiros a cada lote os deixaria sempre vazios
+	private void created(Planet planet, ImportReport report) {
+		evict("planets", planet.getId());
+		evict("planetsByName", key(planet));
+		report.created();
+	}
+	
+	private void evict(String cacheName, Object key) {
+		Cache cache = cacheManager.getCache(cacheName);
+		if (cache != null) {
+			cache.evict(key);
+		}
+	}
+	
+	//Planetas e eventos do outbox na mesma transação; o índice muda no commit, antes da versão da coleção
+	private List<Planet> save(List<Planet> planets) {
+		return transactionTemplate.execute(status -> {
+			List<Planet> created = new ArrayList<>(planets.size());
+			planetRepository.saveAll(planets).forEach(created::add);
+			created.forEach(planetIndex::add);
+			planetChangeLog.created(created);
+			return created;
+		});
+	}
+	
+	private String key(Planet planet) {
+		return planet.getName().toLowerCase(Locale.ROOT);
+	}
+
+}
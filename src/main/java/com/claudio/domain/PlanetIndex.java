@@ -0,0 +1,322 @@
+package com.claudio.domain;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Índice invertido em memória sobre os tokens de climate e terrain ("temperate, tropical" -> [temperate, tropical]).
+ * Cada planeta ocupa um slot e cada token aponta para um BitSet de slots, então um filtro com vários
+ * tokens é a interseção dos BitSets. Os nomes ficam num trie para a busca por prefixo/aproximada.
+ */
+@Component
+public class PlanetIndex {
+	
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	
+	private final List<Planet> slots = new ArrayList<>();
+	private final Deque<Integer> freeSlots = new ArrayDeque<>();
+	private final Map<Long, Integer> slotsById = new HashMap<>();
+	private final Map<String, Integer> slotsByName = new HashMap<>();
+	private final BitSet live = new BitSet();
+	
+	private final Map<String, BitSet> climates = new HashMap<>();
+	private final Map<String, BitSet> terrains = new HashMap<>();
+	
+	private final NameTrie names = new NameTrie();
+	
+	//Contagens por token/par, atualizadas junto com os postings (sob o mesmo lock de escrita)
+	private final PlanetStats.Counter counter = new PlanetStats.Counter();
+	private volatile GenerationStats stats;
+	
+	private record GenerationStats(long generation, PlanetStats stats) {
+	}
+	
+	private volatile boolean loaded;
+	
+	//Muda a cada alteração (cache dos agregados)
+	private volatile long generation;
+	
+	//Versão da coleção (ETag das listas) a partir do outbox, igual em todos os nós que aplicaram os mesmos eventos:
+	//caughtUp = todos os eventos até ele já estão no índice; localChange = evento deste nó que o poller ainda não alcançou
+	private volatile long caughtUp;
+	private volatile long localChange;
+	
+	public static Set<String> tokens(String value) {
+		Set<String> tokens = new LinkedHashSet<>();
+		if (value == null) {
+			return tokens;
+		}
+		for (String token : value.split(",")) {
+			String normalized = token.trim().toLowerCase(Locale.ROOT);
+			if (!normalized.isEmpty()) {
+				tokens.add(normalized);
+			}
+		}
+		return tokens;
+	}
+	
+	public boolean isLoaded() {
+		return loaded;
+	}
+	
+	public long generation() {
+		return generation;
+	}
+	
+	public String collectionVersionTag() {
+		long upTo = caughtUp;
+		long local = localChange;
+		return local > upTo ? upTo + "+" + local : String.valueOf(upTo);
+	}
+	
+	/**
+	 * Todos os eventos do outbox até changeId já foram aplicados (PlanetChangePoller).
+	 */
+	public synchronized void caughtUp(long changeId) {
+		caughtUp = Math.max(caughtUp, changeId);
+	}
+	
+	/**
+	 * Evento gravado por este nó (PlanetChangeLog); dentro de uma transação, vale depois do commit e
+	 * depois das alterações do próprio índice.
+	 */
+	public void changed(long changeId) {
+		afterCommit(Ordered.LOWEST_PRECEDENCE, () -> {
+			synchronized (this) {
+				localChange = Math.max(localChange, changeId);
+			}
+		});
+	}
+	
+	/**
+	 * "id-versão" do planeta, sem ir ao banco; vazio se o planeta não está no índice.
+	 */
+	public Optional<String> versionTag(Long id) {
+		lock.readLock().lock();
+		try {
+			return versionTag(slotsById.get(id));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	public Optional<String> versionTagByName(String name) {
+		lock.readLock().lock();
+		try {
+			return versionTag(slotsByName.get(name.toLowerCase(Locale.ROOT)));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	private Optional<String> versionTag(Integer slot) {
+		if (slot == null) {
+			return Optional.empty();
+		}
+		Planet planet = slots.get(slot);
+		return Optional.of(planet.getId() + "-" + planet.currentVersion());
+	}
+	
+	/**
+	 * Agregados do catálogo; a cópia imutável é montada uma vez por geração e reaproveitada até a próxima alteração.
+	 */
+	public PlanetStats stats() {
+		GenerationStats current = stats;
+		if (current != null && current.generation() == generation) {
+			return current.stats();
+		}
+		lock.readLock().lock();
+		try {
+			current = new GenerationStats(generation, counter.snapshot());
+			stats = current;
+			return current.stats();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	public void rebuild(Iterable<Planet> planets) {
+		lock.writeLock().lock();
+		try {
+			slots.clear();
+			freeSlots.clear();
+			slotsById.clear();
+			slotsByName.clear();
+			live.clear();
+			climates.clear();
+			terrains.clear();
+			names.clear();
+			counter.clear();
+			for (Planet planet : planets) {
+				insert(planet);
+			}
+			generation++;
+			loaded = true;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+	
+	//Dentro de uma transação, add e remove só valem depois do commit: antes dele a linha não existe para as outras conexões
+	public void add(Planet planet) {
+		afterCommit(Ordered.HIGHEST_PRECEDENCE, () -> {
+			lock.writeLock().lock();
+			try {
+				delete(planet.getId());
+				insert(planet);
+				generation++;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+	
+	public void remove(Long id) {
+		afterCommit(Ordered.HIGHEST_PRECEDENCE, () -> {
+			lock.writeLock().lock();
+			try {
+				if (delete(id)) {
+					generation++;
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+	
+	/**
+	 * Planetas que possuem todos os tokens de climate e de terrain informados (filtro nulo = sem restrição).
+	 */
+	public List<Planet> find(String climate, String terrain) {
+		lock.readLock().lock();
+		try {
+			BitSet result = (BitSet) live.clone();
+			intersect(result, climates, tokens(climate));
+			intersect(result, terrains, tokens(terrain));
+			
+			List<Planet> planets = new ArrayList<>(result.cardinality());
+			for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+				planets.add(slots.get(slot));
+			}
+			planets.sort(Comparator.comparing(Planet::getId));
+			return planets;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Planetas cujo nome começa com a consulta (sem diferenciar maiúsculas), aceitando até maxEdits edições;
+	 * os mais próximos primeiro.
+	 */
+	public List<Planet> search(String query, int maxEdits, int limit) {
+		lock.readLock().lock();
+		try {
+			List<Planet> planets = new ArrayList<>();
+			for (Long id : names.search(query, maxEdits, limit)) {
+				planets.add(slots.get(slotsById.get(id)));
+			}
+			return planets;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+	
+	private static void afterCommit(int order, Runnable change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			change.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				change.run();
+			}
+			
+			@Override
+			public int getOrder() {
+				return order;
+			}
+		});
+	}
+	
+	private void intersect(BitSet result, Map<String, BitSet> postings, Set<String> tokens) {
+		for (String token : tokens) {
+			BitSet slotsWithToken = postings.get(token);
+			if (slotsWithToken == null) {
+				result.clear();
+				return;
+			}
+			result.and(slotsWithToken);
+		}
+	}
+	
+	private void insert(Planet planet) {
+		//Cópia desacoplada da entidade gerenciada pelo Hibernate
+		Planet copy = new Planet(planet.getId(), planet.getName(), planet.getClimate(), planet.getTerrain(), planet.getVersion());
+		
+		int slot;
+		if (freeSlots.isEmpty()) {
+			slot = slots.size();
+			slots.add(copy);
+		} else {
+			slot = freeSlots.pop();
+			slots.set(slot, copy);
+		}
+		slotsById.put(copy.getId(), slot);
+		slotsByName.put(copy.getName().toLowerCase(Locale.ROOT), slot);
+		names.add(copy.getName(), copy.getId());
+		live.set(slot);
+		post(climates, tokens(copy.getClimate()), slot, true);
+		post(terrains, tokens(copy.getTerrain()), slot, true);
+		counter.add(copy);
+	}
+	
+	private boolean delete(Long id) {
+		Integer slot = slotsById.remove(id);
+		if (slot == null) {
+			return false;
+		}
+		Planet planet = slots.get(slot);
+		slotsByName.remove(planet.getName().toLowerCase(Locale.ROOT));
+		names.remove(planet.getName(), id);
+		post(climates, tokens(planet.getClimate()), slot, false);
+		post(terrains, tokens(planet.getTerrain()), slot, false);
+		counter.remove(planet);
+		live.clear(slot);
+		slots.set(slot, null);
+		freeSlots.push(slot);
+		return true;
+	}
+	
+	private void post(Map<String, BitSet> postings, Set<String> tokens, int slot, boolean present) {
+		for (String token : tokens) {
+			if (present) {
+				postings.computeIfAbsent(token, t -> new BitSet()).set(slot);
+			} else {
+				BitSet slotsWithToken = postings.get(token);
+				slotsWithToken.clear(slot);
+				if (slotsWithToken.isEmpty()) {
+					postings.remove(token);
+				}
+			}
+		}
+	}
+
+}
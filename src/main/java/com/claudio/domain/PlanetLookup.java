@@ -0,0 +1,19 @@
+package com.claudio.domain;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Resultado de uma chave do batch-get: a chave pedida (id ou nome), se foi encontrada e o planeta.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PlanetLookup(Long id, String name, boolean found, Planet planet) {
+	
+	static PlanetLookup byId(Long id, Planet planet) {
+		return new PlanetLookup(id, null, planet != null, planet);
+	}
+	
+	static PlanetLookup byName(String name, Planet planet) {
+		return new PlanetLookup(null, name, planet != null, planet);
+	}
+
+}
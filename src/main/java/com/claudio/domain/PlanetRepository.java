@@ -1,17 +1,84 @@
 package com.claudio.domain;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.QueryByExampleExecutor;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
 
 public interface PlanetRepository extends CrudRepository<Planet, Long>, QueryByExampleExecutor<Planet> {
 
+	//Todos os códigos pedidos (AND) via tabelas de junção; count = 0 desliga o filtro
+	String TRAITS_FILTER = "(:climateCount = 0 or p.id in (select q.id from Planet q join q.climates c "
+			+ "where c.id in :climateIds group by q.id having count(c) = :climateCount)) "
+			+ "and (:terrainCount = 0 or p.id in (select q.id from Planet q join q.terrains t "
+			+ "where t.id in :terrainIds group by q.id having count(t) = :terrainCount)) ";
+
+	//Case-insensitive para ficar coerente com a chave normalizada do cache planetsByName
+	@Query("select p from Planet p where lower(p.name) = lower(:name)")
 	Optional<Planet> findByName(String name);
 
+	//Nomes (em minúsculas) que já existem, usado pela importação para reportar conflitos sem abortar o batch
+	@Query("select lower(p.name) from Planet p where lower(p.name) in :names")
+	Set<String> findExistingNames(Collection<String> names);
+
+	//Batch-get: ids e nomes (em minúsculas) resolvidos numa única consulta com listas IN
+	@Query("select p from Planet p where p.id in :ids or lower(p.name) in :names")
+	List<Planet> findByIdsOrNames(Collection<Long> ids, Collection<String> names);
+
 	@Override
 	<S extends Planet> List<S> findAll(Example<S> query);
 
+	@Query("select p from Planet p where " + TRAITS_FILTER + "order by p.id")
+	List<Planet> findByTraits(Collection<Short> climateIds, long climateCount,
+			Collection<Short> terrainIds, long terrainCount);
+
+	//Keyset: a próxima página começa depois do último id devolvido (sem OFFSET)
+	@Query("select p from Planet p where p.id > :after and " + TRAITS_FILTER + "order by p.id")
+	List<Planet> findPage(Long after, Collection<Short> climateIds, long climateCount,
+			Collection<Short> terrainIds, long terrainCount, Pageable pageable);
+
+	//Projeção via construtor: os planetas não ficam no contexto de persistência enquanto o cursor é lido
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+	@Query("select new com.claudio.domain.Planet(p.id, p.name, p.climate, p.terrain, p.version) from Planet p "
+			+ "where " + TRAITS_FILTER + "order by p.id")
+	Stream<Planet> streamAll(Collection<Short> climateIds, long climateCount,
+			Collection<Short> terrainIds, long terrainCount);
+
+	default Stream<Planet> streamAll() {
+		return streamAll(Set.of(), 0, Set.of(), 0);
+	}
+
+	@QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+	@Query("select new com.claudio.domain.PlanetVersion(p.id, p.version) from Planet p order by p.id")
+	Stream<PlanetVersion> streamVersions();
+
+	//Um único DELETE; o retorno (linhas afetadas) diz se o planeta existia. Nativo porque o DELETE em massa do
+	//JPQL apaga antes as tabelas de junção, que já saem pelo on delete cascade
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query(value = "delete from planets where id = :id", nativeQuery = true)
+	int removeById(Long id);
+
+	//Ids que existem, travados até o fim da transação: uma remoção concorrente espera e depois não os acha mais
+	@Query(value = "select id from planets where id in :ids order by id for update", nativeQuery = true)
+	List<Long> lockExistingIds(Collection<Long> ids);
+
+	@Transactional
+	@Modifying(clearAutomatically = true)
+	@Query(value = "delete from planets where id in :ids", nativeQuery = true)
+	int removeByIdIn(Collection<Long> ids);
+
 }
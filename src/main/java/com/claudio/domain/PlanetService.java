@@ -1,43 +1,315 @@
 package com.claudio.domain;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.claudio.config.ReadYourWrites;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
+@Timed(value = "planet.service", histogram = true)
 public class PlanetService {
 	
 	private PlanetRepository planetRepository;
 	
-	public PlanetService(PlanetRepository planetRepository) {
+	private PlanetIndex planetIndex;
+	
+	private PlanetDictionary planetDictionary;
+	
+	private PlanetChangeLog planetChangeLog;
+	
+	private PlanetSnapshotStore snapshotStore;
+	
+	private ReadYourWrites readYourWrites;
+	
+	private final TransactionTemplate createTransaction;
+	
+	//primary: quem acabou de escrever (ReadYourWrites) não pode pegar carona numa leitura feita na réplica
+	private record Filter(String climate, String terrain, boolean primary) {
+	}
+	
+	private record Traits(Set<Short> climateIds, Set<Short> terrainIds) {
+	}
+	
+	//Misses simultâneos da mesma chave (ex.: entrada popular que expirou no cache) viram uma única consulta
+	private final SingleFlight<Long, Optional<Planet>> getFlights = new SingleFlight<>("get");
+	private final SingleFlight<String, Optional<Planet>> getByNameFlights = new SingleFlight<>("getByName");
+	private final SingleFlight<Filter, List<Planet>> listFlights = new SingleFlight<>("list");
+	
+	public PlanetService(PlanetRepository planetRepository, PlanetIndex planetIndex, PlanetDictionary planetDictionary,
+			PlanetChangeLog planetChangeLog, PlatformTransactionManager transactionManager) {
 		this.planetRepository = planetRepository;
+		this.planetIndex = planetIndex;
+		this.planetDictionary = planetDictionary;
+		this.planetChangeLog = planetChangeLog;
+		this.createTransaction = new TransactionTemplate(transactionManager);
 	}
 	
+	//Só existe em réplicas somente-leitura (planets.read-only=true); aí as leituras saem do snapshot
+	@Autowired(required = false)
+	public void setSnapshotStore(PlanetSnapshotStore snapshotStore) {
+		this.snapshotStore = snapshotStore;
+	}
+	
+	//Só existe com réplicas de leitura (planets.replicas.urls)
+	@Autowired(required = false)
+	public void setReadYourWrites(ReadYourWrites readYourWrites) {
+		this.readYourWrites = readYourWrites;
+	}
+	
+	public boolean isReadOnly() {
+		return snapshotStore != null;
+	}
+	
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadIndex() {
+		//Já carregado a partir do arquivo de snapshot (PlanetSnapshotFile)
+		if (isReadOnly() || planetIndex.isLoaded()) {
+			return;
+		}
+		planetIndex.rebuild(planetRepository.findAll());
+	}
+	
+	//Remove entradas negativas (id/nome consultados antes de existirem); nos outros nós, via outbox (PlanetChangePoller)
+	@Caching(evict = {
+			@CacheEvict(cacheNames = "planets", key = "#result.id"),
+			@CacheEvict(cacheNames = "planetsByName", key = "#planet.name.toLowerCase(T(java.util.Locale).ROOT)") })
+	//Tokens novos do dicionário antes da transação do planeta: cada chamada usa uma conexão por vez
 	public Planet create(Planet planet) {
-		return planetRepository.save(planet);
-		
+		checkWritable();
+		planetDictionary.link(planet);
+		return createTransaction.execute(status -> {
+			Planet planetCreated = planetRepository.save(planet);
+			planetChangeLog.created(List.of(planetCreated));
+			planetIndex.add(planetCreated);
+			return planetCreated;
+		});
 	}
 
+	//O snapshot já é a cópia em memória: cachear por cima dele só duplicaria os planetas no heap.
+	//No primário de propósito (o findById herda o readOnly do SimpleJpaRepository e iria à réplica): o cache é
+	//compartilhado e não pode ser preenchido por uma réplica atrasada
+	@Cacheable(cacheNames = "planets", key = "#id", condition = "!#root.target.readOnly")
 	public Optional<Planet> get(Long id) {
-		return planetRepository.findById(id);
+		if (isReadOnly()) {
+			return snapshotStore.current().get(id);
+		}
+		return getFlights.execute(id, () -> ReadYourWrites.onPrimary(() -> planetRepository.findById(id)));
 	}
 
+	@Cacheable(cacheNames = "planetsByName", key = "#name.toLowerCase(T(java.util.Locale).ROOT)", condition = "!#root.target.readOnly")
 	public Optional<Planet> getByName(String name) {
- 
-		return planetRepository.findByName(name);
+		if (isReadOnly()) {
+			return snapshotStore.current().getByName(name);
+		}
+
+		return getByNameFlights.execute(name.toLowerCase(Locale.ROOT), () -> ReadYourWrites.onPrimary(() -> planetRepository.findByName(name)));
+	}
+
+	/**
+	 * Vários planetas de uma vez, numa única consulta; o resultado segue a ordem pedida (ids e depois nomes),
+	 * com found = false para as chaves que não existem.
+	 */
+	@Transactional(readOnly = true)
+	public List<PlanetLookup> getAll(List<Long> ids, List<String> names) {
+		Map<Long, Planet> byId = new HashMap<>();
+		Map<String, Planet> byName = new HashMap<>();
+		if (isReadOnly()) {
+			PlanetSnapshot snapshot = snapshotStore.current();
+			ids.forEach(id -> snapshot.get(id).ifPresent(planet -> byId.put(id, planet)));
+			names.forEach(name -> snapshot.getByName(name).ifPresent(planet -> byName.put(name.toLowerCase(Locale.ROOT), planet)));
+		} else if (!ids.isEmpty() || !names.isEmpty()) {
+			Set<String> lowerNames = names.stream().map(name -> name.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+			for (Planet planet : planetRepository.findByIdsOrNames(Set.copyOf(ids), lowerNames)) {
+				byId.put(planet.getId(), planet);
+				byName.put(planet.getName().toLowerCase(Locale.ROOT), planet);
+			}
+		}
+		
+		List<PlanetLookup> lookups = new ArrayList<>(ids.size() + names.size());
+		ids.forEach(id -> lookups.add(PlanetLookup.byId(id, byId.get(id))));
+		names.forEach(name -> lookups.add(PlanetLookup.byName(name, byName.get(name.toLowerCase(Locale.ROOT)))));
+		return lookups;
+	}
+
+	//Versões vindas do índice em memória: permitem responder 304 sem carregar nem serializar o planeta
+	public Optional<String> versionTag(Long id) {
+		if (isReadOnly()) {
+			return snapshotStore.current().versionTag(id);
+		}
+		return planetIndex.versionTag(id);
+	}
+
+	public Optional<String> versionTagByName(String name) {
+		if (isReadOnly()) {
+			return snapshotStore.current().getByName(name).map(planet -> planet.getId() + "-" + planet.currentVersion());
+		}
+		return planetIndex.versionTagByName(name);
+	}
+
+	//Na réplica a coleção só muda quando o snapshot é trocado
+	public Optional<String> listVersionTag() {
+		if (isReadOnly()) {
+			return Optional.of("s" + snapshotStore.current().getCreatedAt());
+		}
+		return planetIndex.isLoaded() ? Optional.of(planetIndex.collectionVersionTag()) : Optional.empty();
+	}
+
+	/**
+	 * Versão de uma lista específica: só quando o corpo sai da mesma fonte da versão (índice ou snapshot locais).
+	 * Uma leitura roteada para a réplica pode estar atrás da versão local, e o 304 seguraria o corpo defasado.
+	 */
+	public Optional<String> listVersionTag(String climate, String terrain, boolean paged) {
+		if (!isReadOnly() && readsFromReplica() && (paged || !listedFromIndex(climate, terrain))) {
+			return Optional.empty();
+		}
+		return listVersionTag();
 	}
 
+	/**
+	 * Com filtro, e índice já carregado, a lista sai do índice invertido (match por token);
+	 * sem filtro, ou durante a carga inicial, vai ao banco (com filtro, pelos códigos das tabelas de junção).
+	 */
+	@Transactional(readOnly = true)
 	public List<Planet> list(String climate, String terrain) {
-        Example<Planet> query = QueryBuilder.makeQuery(new Planet(null, climate, terrain));
-		return planetRepository.findAll(query);
+		if (isReadOnly()) {
+			return snapshotStore.current().list(climate, terrain);
+		}
+		if (listedFromIndex(climate, terrain)) {
+			return planetIndex.find(climate, terrain);
+		}
+		
+		return listFlights.execute(new Filter(climate, terrain, ReadYourWrites.isPinnedToPrimary()), () -> {
+			if (climate == null && terrain == null) {
+				Example<Planet> query = QueryBuilder.makeQuery(new Planet());
+				return planetRepository.findAll(query);
+			}
+			return traits(climate, terrain).map(traits -> planetRepository.findByTraits(
+					traits.climateIds(), traits.climateIds().size(), traits.terrainIds(), traits.terrainIds().size()))
+				.orElse(List.of());
+		});
+	}
+
+	//Agregados mantidos pelo índice a cada create/remove; na réplica, calculados uma vez por snapshot
+	public Optional<PlanetStats> stats() {
+		if (isReadOnly()) {
+			return Optional.of(snapshotStore.current().stats());
+		}
+		return planetIndex.isLoaded() ? Optional.of(planetIndex.stats()) : Optional.empty();
+	}
+
+	//Servido só por trie: o do índice (carregado na subida e mantido por create/remove) ou, na réplica, o do snapshot
+	public List<Planet> search(String query, int maxEdits, int limit) {
+		if (isReadOnly()) {
+			return snapshotStore.current().search(query, maxEdits, limit);
+		}
+		return planetIndex.search(query, maxEdits, limit);
+	}
+
+	@Transactional(readOnly = true)
+	public List<Planet> page(String climate, String terrain, Long after, int limit) {
+		if (isReadOnly()) {
+			return snapshotStore.current().page(climate, terrain, after == null ? 0L : after, limit);
+		}
+		return traits(climate, terrain).map(traits -> planetRepository.findPage(after == null ? 0L : after,
+				traits.climateIds(), traits.climateIds().size(), traits.terrainIds(), traits.terrainIds().size(),
+				PageRequest.ofSize(limit)))
+			.orElse(List.of());
 	}
 
-	public void remove(Long id) {
+	//O cursor JDBC só existe dentro da transação, por isso o consumer é chamado aqui dentro
+	@Transactional(readOnly = true)
+	public void stream(String climate, String terrain, Consumer<Planet> consumer) {
+		if (isReadOnly()) {
+			snapshotStore.current().forEach(climate, terrain, consumer);
+			return;
+		}
+		Optional<Traits> traits = traits(climate, terrain);
+		if (traits.isEmpty()) {
+			return;
+		}
+		try (Stream<Planet> planets = planetRepository.streamAll(traits.get().climateIds(), traits.get().climateIds().size(),
+				traits.get().terrainIds(), traits.get().terrainIds().size())) {
+			planets.forEach(consumer);
+		}
+	}
+
+	//Pelo id não sabemos o nome, então o cache por nome é limpo por inteiro (remoções são raras)
+	@Caching(evict = {
+			@CacheEvict(cacheNames = "planets", key = "#id"),
+			@CacheEvict(cacheNames = "planetsByName", allEntries = true) })
+	@Transactional
+	public boolean remove(Long id) {
+		checkWritable();
 		
-		Optional<Planet> planetFindedOptional = planetRepository.findById(id);
-		planetRepository.delete(planetFindedOptional.orElse(null));
+		boolean removed = planetRepository.removeById(id) > 0;
+		if (removed) {
+			planetChangeLog.deleted(List.of(id));
+			planetIndex.remove(id);
+		}
+		return removed;
+	}
+
+	@Caching(evict = {
+			@CacheEvict(cacheNames = "planets", allEntries = true),
+			@CacheEvict(cacheNames = "planetsByName", allEntries = true) })
+	//Só os ids que existiam vão para o outbox e o feed
+	@Transactional
+	public int removeAll(Collection<Long> ids) {
+		checkWritable();
+		
+		List<Long> existing = ids.isEmpty() ? List.of() : planetRepository.lockExistingIds(ids);
+		if (existing.isEmpty()) {
+			return 0;
+		}
+		int removed = planetRepository.removeByIdIn(existing);
+		planetChangeLog.deleted(existing);
+		existing.forEach(planetIndex::remove);
+		return removed;
+	}
+	
+	//Vazio quando algum token do filtro não está no dicionário: nenhum planeta pode casar
+	private Optional<Traits> traits(String climate, String terrain) {
+		return planetDictionary.climateIds(climate)
+				.flatMap(climateIds -> planetDictionary.terrainIds(terrain).map(terrainIds -> new Traits(climateIds, terrainIds)));
+	}
+	
+	private boolean listedFromIndex(String climate, String terrain) {
+		return (climate != null || terrain != null) && planetIndex.isLoaded();
+	}
+	
+	//Transações readOnly vão à réplica, a menos que o cliente tenha escrito há pouco
+	private boolean readsFromReplica() {
+		return readYourWrites != null && !ReadYourWrites.isPinnedToPrimary();
+	}
+	
+	private void checkWritable() {
+		if (isReadOnly()) {
+			throw new ReadOnlyReplicaException();
+		}
 	}
 
 }
@@ -0,0 +1,321 @@
+package com.claudio.domain;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Cópia somente-leitura de todos os planetas num único buffer fora do heap.
+ * 
+ * Layout: cabeçalho | dicionário (climate/terrain distintos) | registros ordenados por id
+ * (id, version, código do climate, código do terrain, nome UTF-8) | índice id -> offset | índice hash(nome) -> offset.
+ * No heap ficam só o dicionário decodificado e os tokens de cada entrada, que são poucos.
+ */
+public class PlanetSnapshot {
+	
+	static final int MAGIC = 0x504C4E54; // "PLNT"
+	static final int FORMAT_VERSION = 1;
+	static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 4 + 4 + 4 + 4 + 4;
+	
+	private static final int ID_ENTRY_SIZE = 8 + 4;
+	private static final int NAME_ENTRY_SIZE = 4 + 4;
+	
+	private final ByteBuffer buffer;
+	private final long createdAt;
+	private final int count;
+	private final int recordsOffset;
+	private final int idIndexOffset;
+	private final int nameIndexOffset;
+	private final String[] dictionary;
+	private final List<Set<String>> dictionaryTokens;
+	
+	//Calculado na primeira consulta: o snapshot é imutável
+	private volatile PlanetStats stats;
+	
+	//Montado na primeira busca por nome, como o stats; depois de publicado o trie só é lido
+	private volatile NameTrie names;
+	
+	private PlanetSnapshot(ByteBuffer buffer) {
+		this.buffer = buffer.asReadOnlyBuffer();
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Not a planet snapshot (or unsupported format version)");
+		}
+		this.createdAt = buffer.getLong(8);
+		this.count = buffer.getInt(16);
+		int dictionarySize = buffer.getInt(20);
+		int dictionaryOffset = buffer.getInt(24);
+		this.recordsOffset = buffer.getInt(28);
+		this.idIndexOffset = buffer.getInt(32);
+		this.nameIndexOffset = buffer.getInt(36);
+		
+		this.dictionary = new String[dictionarySize];
+		this.dictionaryTokens = new ArrayList<>(dictionarySize);
+		int offset = dictionaryOffset;
+		for (int code = 0; code < dictionarySize; code++) {
+			int length = buffer.getInt(offset);
+			dictionary[code] = string(offset + 4, length);
+			dictionaryTokens.add(PlanetIndex.tokens(dictionary[code]));
+			offset += 4 + length;
+		}
+	}
+	
+	/**
+	 * Abre um buffer já montado (ex.: um arquivo mapeado em memória), validando o cabeçalho.
+	 */
+	public static PlanetSnapshot wrap(ByteBuffer buffer) {
+		return new PlanetSnapshot(buffer);
+	}
+	
+	public static PlanetSnapshot build(List<Planet> planets, long createdAt) {
+		List<Planet> sorted = new ArrayList<>(planets);
+		sorted.sort(Comparator.comparing(Planet::getId));
+		
+		Map<String, Integer> codes = new HashMap<>();
+		List<byte[]> dictionary = new ArrayList<>();
+		int dictionaryBytes = 0;
+		int recordBytes = 0;
+		List<byte[]> names = new ArrayList<>(sorted.size());
+		for (Planet planet : sorted) {
+			for (String value : new String[] { planet.getClimate(), planet.getTerrain() }) {
+				if (!codes.containsKey(value)) {
+					byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+					codes.put(value, dictionary.size());
+					dictionary.add(bytes);
+					dictionaryBytes += 4 + bytes.length;
+				}
+			}
+			byte[] name = planet.getName().getBytes(StandardCharsets.UTF_8);
+			names.add(name);
+			recordBytes += 8 + 8 + 4 + 4 + 4 + name.length;
+		}
+		
+		int dictionaryOffset = HEADER_SIZE;
+		int recordsOffset = dictionaryOffset + dictionaryBytes;
+		int idIndexOffset = recordsOffset + recordBytes;
+		int nameIndexOffset = idIndexOffset + sorted.size() * ID_ENTRY_SIZE;
+		int size = nameIndexOffset + sorted.size() * NAME_ENTRY_SIZE;
+		
+		ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+		buffer.putInt(MAGIC).putInt(FORMAT_VERSION).putLong(createdAt).putInt(sorted.size()).putInt(dictionary.size())
+				.putInt(dictionaryOffset).putInt(recordsOffset).putInt(idIndexOffset).putInt(nameIndexOffset);
+		for (byte[] value : dictionary) {
+			buffer.putInt(value.length).put(value);
+		}
+		
+		long[][] nameEntries = new long[sorted.size()][];
+		for (int i = 0; i < sorted.size(); i++) {
+			Planet planet = sorted.get(i);
+			int offset = buffer.position();
+			buffer.putLong(planet.getId()).putLong(planet.currentVersion())
+					.putInt(codes.get(planet.getClimate())).putInt(codes.get(planet.getTerrain()))
+					.putInt(names.get(i).length).put(names.get(i));
+			buffer.putLong(idIndexOffset + i * ID_ENTRY_SIZE, planet.getId());
+			buffer.putInt(idIndexOffset + i * ID_ENTRY_SIZE + 8, offset);
+			nameEntries[i] = new long[] { nameHash(planet.getName()), offset };
+		}
+		
+		Arrays.sort(nameEntries, Comparator.comparingLong(entry -> entry[0]));
+		for (int i = 0; i < nameEntries.length; i++) {
+			buffer.putInt(nameIndexOffset + i * NAME_ENTRY_SIZE, (int) nameEntries[i][0]);
+			buffer.putInt(nameIndexOffset + i * NAME_ENTRY_SIZE + 4, (int) nameEntries[i][1]);
+		}
+		
+		return new PlanetSnapshot(buffer.clear());
+	}
+	
+	public long getCreatedAt() {
+		return createdAt;
+	}
+	
+	public int size() {
+		return count;
+	}
+	
+	/**
+	 * Conteúdo bruto (somente leitura), pronto para ser gravado em arquivo.
+	 */
+	public ByteBuffer content() {
+		return buffer.duplicate().clear();
+	}
+	
+	//Acesso posicional em ordem de id, usado para comparar o snapshot com o banco
+	long idAt(int entry) {
+		return buffer.getLong(idIndexOffset + entry * ID_ENTRY_SIZE);
+	}
+	
+	long versionAt(int entry) {
+		return buffer.getLong(buffer.getInt(idIndexOffset + entry * ID_ENTRY_SIZE + 8) + 8);
+	}
+	
+	public Optional<Planet> get(long id) {
+		int entry = findId(id);
+		return entry < 0 ? Optional.empty() : Optional.of(read(buffer.getInt(idIndexOffset + entry * ID_ENTRY_SIZE + 8)));
+	}
+	
+	public Optional<String> versionTag(long id) {
+		int entry = findId(id);
+		if (entry < 0) {
+			return Optional.empty();
+		}
+		int offset = buffer.getInt(idIndexOffset + entry * ID_ENTRY_SIZE + 8);
+		return Optional.of(id + "-" + buffer.getLong(offset + 8));
+	}
+	
+	public Optional<Planet> getByName(String name) {
+		int hash = nameHash(name);
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int midHash = buffer.getInt(nameIndexOffset + mid * NAME_ENTRY_SIZE);
+			if (midHash < hash) {
+				low = mid + 1;
+			} else if (midHash > hash) {
+				high = mid - 1;
+			} else {
+				//Volta até a primeira entrada com o mesmo hash e confere o nome de cada colisão
+				int entry = mid;
+				while (entry > 0 && buffer.getInt(nameIndexOffset + (entry - 1) * NAME_ENTRY_SIZE) == hash) {
+					entry--;
+				}
+				for (; entry < count && buffer.getInt(nameIndexOffset + entry * NAME_ENTRY_SIZE) == hash; entry++) {
+					Planet planet = read(buffer.getInt(nameIndexOffset + entry * NAME_ENTRY_SIZE + 4));
+					if (planet.getName().equalsIgnoreCase(name)) {
+						return Optional.of(planet);
+					}
+				}
+				return Optional.empty();
+			}
+		}
+		return Optional.empty();
+	}
+	
+	/**
+	 * Mesma semântica do PlanetIndex (todos os tokens informados); o filtro compara só códigos inteiros
+	 * e só os registros que passam são decodificados.
+	 */
+	public List<Planet> list(String climate, String terrain) {
+		List<Planet> planets = new ArrayList<>();
+		forEach(climate, terrain, planets::add);
+		return planets;
+	}
+	
+	public void forEach(String climate, String terrain, Consumer<Planet> consumer) {
+		BitSet climates = matchingCodes(PlanetIndex.tokens(climate));
+		BitSet terrains = matchingCodes(PlanetIndex.tokens(terrain));
+		
+		for (int entry = 0; entry < count; entry++) {
+			int offset = buffer.getInt(idIndexOffset + entry * ID_ENTRY_SIZE + 8);
+			if (climates.get(buffer.getInt(offset + 16)) && terrains.get(buffer.getInt(offset + 20))) {
+				consumer.accept(read(offset));
+			}
+		}
+	}
+	
+	public PlanetStats stats() {
+		PlanetStats current = stats;
+		if (current == null) {
+			PlanetStats.Counter counter = new PlanetStats.Counter();
+			forEach(null, null, counter::add);
+			current = counter.snapshot();
+			stats = current;
+		}
+		return current;
+	}
+	
+	public List<Planet> page(String climate, String terrain, long after, int limit) {
+		BitSet climates = matchingCodes(PlanetIndex.tokens(climate));
+		BitSet terrains = matchingCodes(PlanetIndex.tokens(terrain));
+		
+		List<Planet> planets = new ArrayList<>(limit);
+		int first = findId(after);
+		for (int entry = first < 0 ? -first - 1 : first + 1; entry < count && planets.size() < limit; entry++) {
+			int offset = buffer.getInt(idIndexOffset + entry * ID_ENTRY_SIZE + 8);
+			if (climates.get(buffer.getInt(offset + 16)) && terrains.get(buffer.getInt(offset + 20))) {
+				planets.add(read(offset));
+			}
+		}
+		return planets;
+	}
+	
+	/**
+	 * Mesma busca do PlanetIndex (prefixo com até maxEdits edições, os mais próximos primeiro).
+	 */
+	public List<Planet> search(String query, int maxEdits, int limit) {
+		NameTrie trie = names;
+		if (trie == null) {
+			trie = new NameTrie();
+			for (int entry = 0; entry < count; entry++) {
+				Planet planet = read(buffer.getInt(idIndexOffset + entry * ID_ENTRY_SIZE + 8));
+				trie.add(planet.getName(), planet.getId());
+			}
+			names = trie;
+		}
+		
+		List<Planet> planets = new ArrayList<>();
+		for (Long id : trie.search(query, maxEdits, limit)) {
+			get(id).ifPresent(planets::add);
+		}
+		return planets;
+	}
+	
+	private BitSet matchingCodes(Set<String> tokens) {
+		BitSet codes = new BitSet(dictionary.length);
+		for (int code = 0; code < dictionary.length; code++) {
+			if (dictionaryTokens.get(code).containsAll(tokens)) {
+				codes.set(code);
+			}
+		}
+		return codes;
+	}
+	
+	/**
+	 * Busca binária no índice de ids; se não achar devolve -(ponto de inserção) - 1, como o Arrays.binarySearch.
+	 */
+	private int findId(long id) {
+		int low = 0;
+		int high = count - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long midId = buffer.getLong(idIndexOffset + mid * ID_ENTRY_SIZE);
+			if (midId < id) {
+				low = mid + 1;
+			} else if (midId > id) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -(low + 1);
+	}
+	
+	private Planet read(int offset) {
+		long id = buffer.getLong(offset);
+		long version = buffer.getLong(offset + 8);
+		String climate = dictionary[buffer.getInt(offset + 16)];
+		String terrain = dictionary[buffer.getInt(offset + 20)];
+		String name = string(offset + 28, buffer.getInt(offset + 24));
+		return new Planet(id, name, climate, terrain, version);
+	}
+	
+	private String string(int offset, int length) {
+		byte[] bytes = new byte[length];
+		buffer.get(offset, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	private static int nameHash(String name) {
+		return name.toLowerCase(Locale.ROOT).hashCode();
+	}
+
+}
@@ -0,0 +1,173 @@
+package com.claudio.domain;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Partida a frio sem varrer a tabela: o catálogo é exportado periodicamente para um arquivo binário
+ * (formato do PlanetSnapshot, com versão no cabeçalho) e, na subida, o arquivo é mapeado em memória
+ * e carregado no índice antes da primeira requisição. Em seguida o banco é conferido em background,
+ * comparando só ids e versões, e apenas o que mudou é relido.
+ */
+@Component
+@ConditionalOnProperty(name = "planets.snapshot.file")
+public class PlanetSnapshotFile {
+	
+	private static final int CATCH_UP_CHUNK = 1000;
+	
+	private final Path file;
+	
+	private final PlanetRepository planetRepository;
+	
+	private final PlanetIndex planetIndex;
+	
+	private final TransactionTemplate transactionTemplate;
+	
+	private final TaskExecutor taskExecutor;
+	
+	private final ObjectProvider<PlanetSnapshotStore> snapshotStore;
+	
+	public PlanetSnapshotFile(@Value("${planets.snapshot.file}") Path file, PlanetRepository planetRepository,
+			PlanetIndex planetIndex, PlatformTransactionManager transactionManager,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+			ObjectProvider<PlanetSnapshotStore> snapshotStore) {
+		this.file = file;
+		this.planetRepository = planetRepository;
+		this.planetIndex = planetIndex;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.taskExecutor = taskExecutor;
+		this.snapshotStore = snapshotStore;
+	}
+	
+	/**
+	 * Mapeia o arquivo (somente leitura). Arquivo ausente, corrompido ou de outra versão do formato
+	 * resulta em vazio, e quem chamou volta para a carga pelo banco.
+	 */
+	public Optional<PlanetSnapshot> read() {
+		if (!Files.isRegularFile(file)) {
+			return Optional.empty();
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return Optional.of(PlanetSnapshot.wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+		} catch (IOException | RuntimeException ex) {
+			return Optional.empty();
+		}
+	}
+	
+	//Grava num temporário e troca com um move atômico: quem está lendo (ou mapeou) o anterior não vê arquivo pela metade
+	public void write(PlanetSnapshot snapshot) {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try {
+			if (file.getParent() != null) {
+				Files.createDirectories(file.getParent());
+			}
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer content = snapshot.content();
+				while (content.hasRemaining()) {
+					channel.write(content);
+				}
+				channel.force(true);
+			}
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+	
+	//Roda antes do PlanetService.loadIndex, que não recarrega um índice já carregado
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmStart() {
+		//Na réplica somente-leitura o PlanetSnapshotStore é quem usa o arquivo
+		if (snapshotStore.getIfAvailable() != null) {
+			return;
+		}
+		
+		Optional<PlanetSnapshot> snapshot = read();
+		if (snapshot.isPresent()) {
+			planetIndex.rebuild(snapshot.get().list(null, null));
+			taskExecutor.execute(() -> catchUp(snapshot.get()));
+		} else {
+			planetIndex.rebuild(planetRepository.findAll());
+			taskExecutor.execute(this::export);
+		}
+	}
+	
+	/**
+	 * Merge das duas sequências ordenadas por id (snapshot e banco): id só no snapshot foi removido,
+	 * id só no banco ou com outra versão foi criado/alterado e é relido.
+	 */
+	void catchUp(PlanetSnapshot snapshot) {
+		List<Long> changed = new ArrayList<>();
+		List<Long> removed = new ArrayList<>();
+		
+		transactionTemplate.executeWithoutResult(status -> {
+			try (Stream<PlanetVersion> versions = planetRepository.streamVersions()) {
+				int entry = 0;
+				for (Iterator<PlanetVersion> rows = versions.iterator(); rows.hasNext();) {
+					PlanetVersion row = rows.next();
+					for (; entry < snapshot.size() && snapshot.idAt(entry) < row.id(); entry++) {
+						removed.add(snapshot.idAt(entry));
+					}
+					if (entry < snapshot.size() && snapshot.idAt(entry) == row.id()) {
+						if (snapshot.versionAt(entry) != row.currentVersion()) {
+							changed.add(row.id());
+						}
+						entry++;
+					} else {
+						changed.add(row.id());
+					}
+				}
+				for (; entry < snapshot.size(); entry++) {
+					removed.add(snapshot.idAt(entry));
+				}
+			}
+		});
+		
+		removed.forEach(planetIndex::remove);
+		for (int from = 0; from < changed.size(); from += CATCH_UP_CHUNK) {
+			planetRepository.findAllById(changed.subList(from, Math.min(changed.size(), from + CATCH_UP_CHUNK)))
+				.forEach(planetIndex::add);
+		}
+		export();
+	}
+	
+	//Exporta a partir do índice em memória, sem nova leitura do banco
+	@Scheduled(fixedDelayString = "${planets.snapshot.refresh-interval:PT1M}",
+			initialDelayString = "${planets.snapshot.refresh-interval:PT1M}")
+	public void export() {
+		if (snapshotStore.getIfAvailable() != null || !planetIndex.isLoaded()) {
+			return;
+		}
+		write(PlanetSnapshot.build(planetIndex.find(null, null), System.currentTimeMillis()));
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.claudio.domain;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Réplica somente-leitura: mantém todos os planetas num PlanetSnapshot (fora do heap) e o recarrega
+ * periodicamente. A troca é atômica, então as leituras nunca veem um snapshot pela metade.
+ * Com planets.snapshot.file a réplica sobe servindo o arquivo mapeado e recarrega do banco em background.
+ */
+@Component
+@ConditionalOnProperty(name = "planets.read-only", havingValue = "true")
+public class PlanetSnapshotStore {
+	
+	private final PlanetRepository planetRepository;
+	
+	private final TransactionTemplate transactionTemplate;
+	
+	private final TaskExecutor taskExecutor;
+	
+	private final PlanetSnapshotFile snapshotFile;
+	
+	private final boolean fromFile;
+	
+	private volatile PlanetSnapshot snapshot;
+	
+	public PlanetSnapshotStore(PlanetRepository planetRepository, PlatformTransactionManager transactionManager,
+			@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) TaskExecutor taskExecutor,
+			ObjectProvider<PlanetSnapshotFile> snapshotFile) {
+		this.planetRepository = planetRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.taskExecutor = taskExecutor;
+		this.snapshotFile = snapshotFile.getIfAvailable();
+		
+		this.snapshot = this.snapshotFile == null ? null : this.snapshotFile.read().orElse(null);
+		this.fromFile = snapshot != null;
+		if (!fromFile) {
+			refresh();
+		}
+	}
+	
+	public PlanetSnapshot current() {
+		return snapshot;
+	}
+	
+	@EventListener(ApplicationReadyEvent.class)
+	public void catchUp() {
+		if (fromFile) {
+			taskExecutor.execute(this::refresh);
+		}
+	}
+	
+	//Lê pela projeção em streaming (sem entidades gerenciadas); a lista só vive durante a montagem
+	@Scheduled(fixedDelayString = "${planets.snapshot.refresh-interval:PT1M}",
+			initialDelayString = "${planets.snapshot.refresh-interval:PT1M}")
+	public void refresh() {
+		long createdAt = System.currentTimeMillis();
+		List<Planet> planets = transactionTemplate.execute(status -> {
+			try (Stream<Planet> rows = planetRepository.streamAll()) {
+				return rows.toList();
+			}
+		});
+		snapshot = PlanetSnapshot.build(planets, createdAt);
+		if (snapshotFile != null) {
+			snapshotFile.write(snapshot);
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.claudio.domain;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+
+/**
+ * Contagem de planetas por token de climate, por token de terrain e por par climate×terrain
+ * (pairs: climate -> terrain -> planetas). Um planeta "arid, temperate" conta uma vez para cada token.
+ */
+public record PlanetStats(int total, Map<String, Integer> climates, Map<String, Integer> terrains,
+		Map<String, Map<String, Integer>> pairs) {
+	
+	public static PlanetStats of(Iterable<Planet> planets) {
+		Counter counter = new Counter();
+		planets.forEach(counter::add);
+		return counter.snapshot();
+	}
+	
+	/**
+	 * Agregados mantidos incrementalmente; não é thread-safe (quem usa sincroniza, como o PlanetIndex).
+	 */
+	static final class Counter {
+		
+		//Remove a chave quando a contagem chega a zero
+		private static final BinaryOperator<Integer> SUM = (current, delta) -> current + delta == 0 ? null : current + delta;
+		
+		private int total;
+		private final Map<String, Integer> climates = new HashMap<>();
+		private final Map<String, Integer> terrains = new HashMap<>();
+		private final Map<String, Map<String, Integer>> pairs = new HashMap<>();
+		
+		void add(Planet planet) {
+			count(planet, 1);
+		}
+		
+		void remove(Planet planet) {
+			count(planet, -1);
+		}
+		
+		void clear() {
+			total = 0;
+			climates.clear();
+			terrains.clear();
+			pairs.clear();
+		}
+		
+		private void count(Planet planet, int delta) {
+			Set<String> climateTokens = PlanetIndex.tokens(planet.getClimate());
+			Set<String> terrainTokens = PlanetIndex.tokens(planet.getTerrain());
+			
+			total += delta;
+			climateTokens.forEach(climate -> climates.merge(climate, delta, SUM));
+			terrainTokens.forEach(terrain -> terrains.merge(terrain, delta, SUM));
+			for (String climate : climateTokens) {
+				Map<String, Integer> byTerrain = pairs.computeIfAbsent(climate, c -> new HashMap<>());
+				terrainTokens.forEach(terrain -> byTerrain.merge(terrain, delta, SUM));
+				if (byTerrain.isEmpty()) {
+					pairs.remove(climate);
+				}
+			}
+		}
+		
+		//Cópia imutável e ordenada (resposta estável para o dashboard)
+		PlanetStats snapshot() {
+			Map<String, Map<String, Integer>> pairsCopy = new TreeMap<>();
+			pairs.forEach((climate, byTerrain) -> pairsCopy.put(climate, Collections.unmodifiableMap(new TreeMap<>(byTerrain))));
+			return new PlanetStats(total, Collections.unmodifiableMap(new TreeMap<>(climates)),
+					Collections.unmodifiableMap(new TreeMap<>(terrains)), Collections.unmodifiableMap(pairsCopy));
+		}
+	}
+
+}
@@ -0,0 +1,12 @@
+package com.claudio.domain;
+
+/**
+ * Só id e versão de um planeta, para comparar o banco com um snapshot sem carregar as linhas inteiras.
+ */
+public record PlanetVersion(Long id, Long version) {
+
+	public long currentVersion() {
+		return version == null ? 0L : version;
+	}
+
+}
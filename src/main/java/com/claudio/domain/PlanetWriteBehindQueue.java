@@ -0,0 +1,154 @@
+package com.claudio.domain;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Ingestão assíncrona (planets.ingest.async=true): o POST só valida e enfileira; uma thread de escrita
+ * drena a fila em lotes e grava cada lote pelo PlanetImporter (uma transação com batches JDBC por lote).
+ * A fila é limitada sem lock: a vaga é reservada com CAS num contador antes do offer.
+ */
+@Service
+@ConditionalOnProperty(name = "planets.ingest.async", havingValue = "true")
+public class PlanetWriteBehindQueue {
+	
+	public static final String QUEUE_METRIC = "planets.ingest.queue";
+	
+	private record Pending(String ticket, Planet planet) {
+	}
+	
+	private final PlanetImporter planetImporter;
+	
+	private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+	
+	private final AtomicInteger size;
+	
+	private final int capacity;
+	
+	private final int batchSize;
+	
+	private final long lingerNanos;
+	
+	private final Cache<String, IngestTicket> tickets;
+	
+	private final Thread writer;
+	
+	private volatile boolean running = true;
+	
+	public PlanetWriteBehindQueue(PlanetImporter planetImporter,
+			@Value("${planets.ingest.queue-capacity:10000}") int capacity,
+			@Value("${planets.ingest.batch-size:500}") int batchSize,
+			@Value("${planets.ingest.linger:5ms}") Duration linger,
+			@Value("${planets.ingest.ticket-ttl:10m}") Duration ticketTtl) {
+		this.planetImporter = planetImporter;
+		this.capacity = capacity;
+		this.batchSize = Math.max(1, batchSize);
+		this.lingerNanos = linger.toNanos();
+		this.size = Metrics.gauge(QUEUE_METRIC, new AtomicInteger());
+		this.tickets = Caffeine.newBuilder().expireAfterWrite(ticketTtl).build();
+		this.writer = new Thread(this::run, "planet-write-behind");
+		this.writer.setDaemon(true);
+	}
+	
+	@PostConstruct
+	public void start() {
+		writer.start();
+	}
+	
+	//Para de aceitar e espera a thread gravar o que ainda está na fila
+	@PreDestroy
+	public void stop() throws InterruptedException {
+		running = false;
+		LockSupport.unpark(writer);
+		writer.join();
+	}
+	
+	public IngestTicket enqueue(Planet planet) {
+		int current;
+		do {
+			current = size.get();
+			if (!running || current >= capacity) {
+				throw new IngestQueueFullException();
+			}
+		} while (!size.compareAndSet(current, current + 1));
+		
+		IngestTicket ticket = IngestTicket.pending(UUID.randomUUID().toString(), planet.getName());
+		tickets.put(ticket.id(), ticket);
+		queue.offer(new Pending(ticket.id(), planet));
+		if (current + 1 >= batchSize) {
+			LockSupport.unpark(writer);
+		}
+		return ticket;
+	}
+	
+	public Optional<IngestTicket> status(String ticket) {
+		return Optional.ofNullable(tickets.getIfPresent(ticket));
+	}
+	
+	private void run() {
+		while (running || !queue.isEmpty()) {
+			if (drain() == 0) {
+				LockSupport.parkNanos(lingerNanos);
+			}
+		}
+	}
+	
+	/**
+	 * Grava até um lote e atualiza os tickets: o relatório do importer identifica as rejeições pela
+	 * posição no lote; os demais planetas receberam o id no próprio objeto ao serem salvos.
+	 */
+	int drain() {
+		List<Pending> batch = new ArrayList<>(batchSize);
+		Pending pending;
+		while (batch.size() < batchSize && (pending = queue.poll()) != null) {
+			batch.add(pending);
+		}
+		if (batch.isEmpty()) {
+			return 0;
+		}
+		size.addAndGet(-batch.size());
+		
+		try {
+			ImportReport report = planetImporter.importPlanets(batch.stream().map(Pending::planet).iterator());
+			Map<Integer, ImportReport.Row> rejected = report.getRejected().stream()
+					.collect(Collectors.toMap(ImportReport.Row::row, Function.identity()));
+			for (int i = 0; i < batch.size(); i++) {
+				ImportReport.Row row = rejected.get(i);
+				Planet planet = batch.get(i).planet();
+				update(batch.get(i).ticket(), ticket -> row == null
+						? ticket.created(planet.getId())
+						: ticket.rejected(IngestTicket.Status.valueOf(row.status().name()), row.message()));
+			}
+		} catch (RuntimeException ex) {
+			//Banco fora, réplica somente-leitura...: o lote inteiro falha, mas a thread continua
+			batch.forEach(failed -> update(failed.ticket(), ticket -> ticket.rejected(IngestTicket.Status.FAILED, ex.getMessage())));
+		}
+		return batch.size();
+	}
+	
+	private void update(String id, Function<IngestTicket, IngestTicket> change) {
+		tickets.asMap().computeIfPresent(id, (key, ticket) -> change.apply(ticket));
+	}
+
+}
@@ -0,0 +1,14 @@
+package com.claudio.domain;
+
+/**
+ * Escrita recebida por uma réplica somente-leitura (planets.read-only=true).
+ */
+public class ReadOnlyReplicaException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ReadOnlyReplicaException() {
+		super("This instance is a read-only replica");
+	}
+
+}
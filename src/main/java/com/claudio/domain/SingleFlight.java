@@ -0,0 +1,70 @@
+package com.claudio.domain;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Deduplica chamadas concorrentes com a mesma chave: a primeira executa, as que chegam enquanto ela
+ * está em andamento esperam o mesmo future. Nada fica guardado depois que a chamada termina (isso é papel do cache).
+ */
+class SingleFlight<K, V> {
+	
+	static final String COALESCED_METRIC = "planets.singleflight.coalesced";
+	
+	private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+	
+	private final LongAdder coalesced = new LongAdder();
+	
+	SingleFlight(String operation) {
+		FunctionCounter.builder(COALESCED_METRIC, coalesced, LongAdder::sum)
+			.tag("operation", operation)
+			.register(Metrics.globalRegistry);
+	}
+	
+	V execute(K key, Supplier<V> loader) {
+		CompletableFuture<V> call = new CompletableFuture<>();
+		CompletableFuture<V> existing = inFlight.putIfAbsent(key, call);
+		if (existing != null) {
+			coalesced.increment();
+			return join(existing);
+		}
+		
+		try {
+			V value = loader.get();
+			call.complete(value);
+			return value;
+		} catch (RuntimeException | Error ex) {
+			call.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			inFlight.remove(key, call);
+		}
+	}
+	
+	long coalesced() {
+		return coalesced.sum();
+	}
+	
+	//Quem esperou recebe a mesma exceção do chamador original, e não um CompletionException
+	private V join(CompletableFuture<V> call) {
+		try {
+			return call.join();
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			if (ex.getCause() instanceof Error cause) {
+				throw cause;
+			}
+			throw ex;
+		}
+	}
+
+}
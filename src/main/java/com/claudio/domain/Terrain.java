@@ -0,0 +1,18 @@
+package com.claudio.domain;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "terrains")
+public class Terrain extends DictionaryEntry {
+	
+	protected Terrain() {
+		
+	}
+	
+	public Terrain(String name) {
+		super(name);
+	}
+
+}
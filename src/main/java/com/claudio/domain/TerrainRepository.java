@@ -0,0 +1,5 @@
+package com.claudio.domain;
+
+public interface TerrainRepository extends DictionaryRepository<Terrain> {
+
+}
@@ -0,0 +1,24 @@
+package com.claudio.reactive;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Table;
+
+import com.claudio.domain.Planet;
+
+/**
+ * Linha da tabela planets para o R2DBC (o Planet é uma entidade JPA).
+ * O insert do R2dbcEntityTemplate grava version 0, como o @Version do Planet (a coluna não tem default no V1).
+ */
+@Table("planets")
+public record PlanetRow(@Id Long id, String name, String climate, String terrain, @Version Long version) {
+	
+	public static PlanetRow of(Long id, Planet planet) {
+		return new PlanetRow(id, planet.getName(), planet.getClimate(), planet.getTerrain(), null);
+	}
+	
+	public Planet toPlanet() {
+		return new Planet(id, name, climate, terrain, version);
+	}
+
+}
@@ -0,0 +1,28 @@
+package com.claudio.reactive;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+@RestControllerAdvice
+@Profile(ReactivePlanetApiApplication.PROFILE)
+public class ReactiveExceptionHandler {
+	
+	//Mesmo 422 da pilha servlet para os Beans não validados
+	@ExceptionHandler(WebExchangeBindException.class)
+	public ResponseEntity<Object> handleNotValid(WebExchangeBindException ex) {
+		return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+				.body(ex.getReason());
+	}
+	
+	@ExceptionHandler(DataIntegrityViolationException.class)
+	public ResponseEntity<Object> handleConflict(DataIntegrityViolationException ex) {
+		return ResponseEntity.status(HttpStatus.CONFLICT)
+				.body(ex.getMessage());
+	}
+
+}
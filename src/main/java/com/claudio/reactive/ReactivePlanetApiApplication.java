@@ -0,0 +1,23 @@
+package com.claudio.reactive;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Variante não-bloqueante do mesmo contrato /planets: WebFlux + R2DBC.
+ * Só escaneia com.claudio.reactive, então nada da pilha JPA/MVC é carregado.
+ */
+@Profile(ReactivePlanetApiApplication.PROFILE)
+@SpringBootApplication
+public class ReactivePlanetApiApplication {
+	
+	public static final String PROFILE = "reactive";
+
+	public static void main(String[] args) {
+		new SpringApplicationBuilder(ReactivePlanetApiApplication.class)
+				.profiles(PROFILE)
+				.run(args);
+	}
+
+}
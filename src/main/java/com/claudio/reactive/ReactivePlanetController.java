@@ -0,0 +1,67 @@
+package com.claudio.reactive;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.claudio.domain.Planet;
+
+import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Mesmo contrato do PlanetController, com handlers não-bloqueantes.
+ */
+@RestController
+@RequestMapping("/planets")
+@Profile(ReactivePlanetApiApplication.PROFILE)
+public class ReactivePlanetController {
+	@Autowired
+	private ReactivePlanetService planetService;
+	
+	@PostMapping
+	public Mono<ResponseEntity<Planet>> create(@RequestBody @Valid Planet planet) {
+		
+		return planetService.create(planet)
+				.map(planetCreated -> ResponseEntity.status(HttpStatus.CREATED).body(planetCreated));
+	}
+	
+	@GetMapping("/{id}")
+	public Mono<ResponseEntity<Planet>> find(@PathVariable Long id) {
+		
+		return planetService.get(id).map(planet -> ResponseEntity.ok(planet))
+				.defaultIfEmpty(ResponseEntity.notFound().build());
+	}
+	
+	@GetMapping("/name/{name}")
+	public Mono<ResponseEntity<Planet>> findName(@PathVariable String name) {
+		
+		return planetService.getByName(name).map(planet -> ResponseEntity.ok(planet))
+				.defaultIfEmpty(ResponseEntity.notFound().build());
+	}
+	
+	@GetMapping
+	public Flux<Planet> list(@RequestParam(required = false) String terrain, 
+			@RequestParam(required = false) String climate) {
+		
+		return planetService.list(climate, terrain);
+	}
+	
+	@DeleteMapping("/{id}")
+	public Mono<ResponseEntity<Void>> remove(@PathVariable Long id) {
+		
+		return planetService.remove(id)
+				.map(removed -> removed ? ResponseEntity.noContent().<Void>build() : ResponseEntity.notFound().<Void>build());
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.claudio.reactive;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactivePlanetRepository extends R2dbcRepository<PlanetRow, Long> {
+	
+	//Mesmo filtro do PlanetRepository.TRAITS_FILTER, pelos tokens: o planeta precisa ter todos os pedidos (AND)
+	String CLIMATES_FILTER = "p.id in (select pc.planet_id from planet_climates pc join climates c on c.id = pc.climate_id "
+			+ "where c.name in (:climates) group by pc.planet_id having count(*) = :climateCount) ";
+	String TERRAINS_FILTER = "p.id in (select pt.planet_id from planet_terrains pt join terrains t on t.id = pt.terrain_id "
+			+ "where t.name in (:terrains) group by pt.planet_id having count(*) = :terrainCount) ";
+	
+	//Uma consulta por combinação: a lista do IN não pode ir vazia
+	@Query("select p.* from planets p where " + CLIMATES_FILTER + "order by p.id")
+	Flux<PlanetRow> findByClimates(Collection<String> climates, int climateCount);
+	
+	@Query("select p.* from planets p where " + TERRAINS_FILTER + "order by p.id")
+	Flux<PlanetRow> findByTerrains(Collection<String> terrains, int terrainCount);
+	
+	@Query("select p.* from planets p where " + CLIMATES_FILTER + "and " + TERRAINS_FILTER + "order by p.id")
+	Flux<PlanetRow> findByTraits(Collection<String> climates, int climateCount, Collection<String> terrains, int terrainCount);
+	
+	@Query("select * from planets where lower(name) = lower(:name)")
+	Mono<PlanetRow> findByName(String name);
+	
+	//Mesmo id que o Hibernate usaria: cada nextval reserva um bloco inteiro do pooled optimizer
+	@Query("select nextval('planets_seq')")
+	Mono<Long> nextId();
+	
+	//Dicionários e junções de climate/terrain (ver PlanetDictionary); o token já existente é ignorado
+	@Modifying
+	@Query("insert into climates (name) values (:name) on conflict do nothing")
+	Mono<Integer> addClimate(String name);
+	
+	@Modifying
+	@Query("insert into terrains (name) values (:name) on conflict do nothing")
+	Mono<Integer> addTerrain(String name);
+	
+	@Modifying
+	@Query("insert into planet_climates (planet_id, climate_id) select :planetId, id from climates where name in (:names)")
+	Mono<Integer> linkClimates(Long planetId, Collection<String> names);
+	
+	@Modifying
+	@Query("insert into planet_terrains (planet_id, terrain_id) select :planetId, id from terrains where name in (:names)")
+	Mono<Integer> linkTerrains(Long planetId, Collection<String> names);
+	
+	//Outbox lido pelos PlanetChangePoller da pilha servlet (ver PlanetChangeLog), na mesma transação da alteração
+	@Modifying
+	@Query("insert into planet_changes (planet_id, name, type, origin, changed_at) "
+			+ "values (:planetId, :name, :type, :origin, :changedAt)")
+	Mono<Integer> logChange(Long planetId, String name, String type, String origin, OffsetDateTime changedAt);
+	
+	//As junções saem pelo on delete cascade
+	@Modifying
+	@Query("delete from planets where id = :id")
+	Mono<Integer> removeById(Long id);
+
+}
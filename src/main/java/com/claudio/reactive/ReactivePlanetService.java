@@ -0,0 +1,99 @@
+package com.claudio.reactive;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.claudio.domain.Planet;
+import com.claudio.domain.PlanetChange;
+import com.claudio.domain.PlanetIndex;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@Profile(ReactivePlanetApiApplication.PROFILE)
+public class ReactivePlanetService {
+	
+	private ReactivePlanetRepository planetRepository;
+	
+	private R2dbcEntityTemplate entityTemplate;
+	
+	//Origem dos eventos do outbox gravados por este nó (ver PlanetChangeLog)
+	private final String origin = UUID.randomUUID().toString();
+	
+	public ReactivePlanetService(ReactivePlanetRepository planetRepository, R2dbcEntityTemplate entityTemplate) {
+		this.planetRepository = planetRepository;
+		this.entityTemplate = entityTemplate;
+	}
+	
+	//O id já vem da sequence, então o save() do repositório faria um UPDATE: o INSERT é explícito
+	@Transactional
+	public Mono<Planet> create(Planet planet) {
+		return planetRepository.nextId()
+				.flatMap(id -> entityTemplate.insert(PlanetRow.of(id, planet)))
+				.flatMap(row -> link(row).thenReturn(row))
+				.flatMap(row -> logChange(row.id(), row.name().toLowerCase(Locale.ROOT), PlanetChange.Type.CREATED).thenReturn(row))
+				.map(PlanetRow::toPlanet);
+	}
+	
+	public Mono<Planet> get(Long id) {
+		return planetRepository.findById(id).map(PlanetRow::toPlanet);
+	}
+	
+	public Mono<Planet> getByName(String name) {
+		return planetRepository.findByName(name).map(PlanetRow::toPlanet);
+	}
+	
+	//Mesmo match por token da pilha servlet (PlanetIndex/PlanetDictionary), pelas tabelas de junção
+	public Flux<Planet> list(String climate, String terrain) {
+		Set<String> climates = PlanetIndex.tokens(climate);
+		Set<String> terrains = PlanetIndex.tokens(terrain);
+		
+		Flux<PlanetRow> rows;
+		if (climates.isEmpty() && terrains.isEmpty()) {
+			rows = planetRepository.findAll(Sort.by("id"));
+		} else if (terrains.isEmpty()) {
+			rows = planetRepository.findByClimates(climates, climates.size());
+		} else if (climates.isEmpty()) {
+			rows = planetRepository.findByTerrains(terrains, terrains.size());
+		} else {
+			rows = planetRepository.findByTraits(climates, climates.size(), terrains, terrains.size());
+		}
+		return rows.map(PlanetRow::toPlanet);
+	}
+	
+	@Transactional
+	public Mono<Boolean> remove(Long id) {
+		return planetRepository.removeById(id)
+				.flatMap(removed -> removed > 0 ? logChange(id, null, PlanetChange.Type.DELETED).thenReturn(true) : Mono.just(false));
+	}
+	
+	//Os nós servlet que dividem o banco aplicam a alteração no índice e nos caches pelo poller
+	private Mono<Integer> logChange(Long planetId, String name, PlanetChange.Type type) {
+		return planetRepository.logChange(planetId, name, type.name(), origin, OffsetDateTime.now(ZoneOffset.UTC));
+	}
+	
+	//Mesmos tokens do PlanetIndex/PlanetDictionary: cria os que faltam no dicionário e grava as junções
+	private Mono<Void> link(PlanetRow row) {
+		Set<String> climates = PlanetIndex.tokens(row.climate());
+		Set<String> terrains = PlanetIndex.tokens(row.terrain());
+		
+		Mono<Void> linkClimates = climates.isEmpty() ? Mono.empty()
+				: Flux.fromIterable(climates).concatMap(planetRepository::addClimate)
+					.then(planetRepository.linkClimates(row.id(), climates)).then();
+		Mono<Void> linkTerrains = terrains.isEmpty() ? Mono.empty()
+				: Flux.fromIterable(terrains).concatMap(planetRepository::addTerrain)
+					.then(planetRepository.linkTerrains(row.id(), terrains)).then();
+		return linkClimates.then(linkTerrains);
+	}
+
+}
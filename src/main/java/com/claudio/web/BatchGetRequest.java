@@ -0,0 +1,10 @@
+package com.claudio.web;
+
+import java.util.List;
+
+/**
+ * Corpo do POST /planets/batch-get: ids e/ou nomes (sem diferenciar maiúsculas).
+ */
+public record BatchGetRequest(List<Long> ids, List<String> names) {
+
+}
@@ -1,19 +1,29 @@
 package com.claudio.web;
 
- import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.InvalidDataAccessApiUsageException;
+ import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import com.claudio.domain.IngestQueueFullException;
+import com.claudio.domain.ReadOnlyReplicaException;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+
+import io.micrometer.core.instrument.Metrics;
+
 @ControllerAdvice
 public class GeneralExceptionHandler extends ResponseEntityExceptionHandler {
+	
+	public static final String ERRORS_METRIC = "planets.errors";
 
 	@Override
 	protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException ex,
@@ -22,15 +32,66 @@ public class GeneralExceptionHandler extends ResponseEntityExceptionHandler {
 		return super.handleMethodArgumentNotValid(ex, headers, HttpStatus.UNPROCESSABLE_ENTITY, request);
 	}
 	
+	//Tudo o que o ResponseEntityExceptionHandler trata passa por aqui: ResponseStatusException, 400/404/405 do Spring MVC...
+	@Override
+	protected ResponseEntity<Object> handleExceptionInternal(Exception ex, Object body, HttpHeaders headers,
+			HttpStatusCode statusCode, WebRequest request) {
+		count(statusCode, ex);
+		return super.handleExceptionInternal(ex, body, headers, statusCode, request);
+	}
+	
 	@ExceptionHandler(DataIntegrityViolationException.class)
 	private ResponseEntity<Object> handleConflict(DataIntegrityViolationException ex) {
+		count(HttpStatus.CONFLICT, ex);
 		return ResponseEntity.status(HttpStatus.CONFLICT)
 				.body(ex.getMessage());
 	}
-   
-	@ExceptionHandler(InvalidDataAccessApiUsageException.class)
-	private ResponseEntity<Object> handleBadRequest(InvalidDataAccessApiUsageException ex) {
-		return ResponseEntity.status(HttpStatus.NOT_FOUND)
-				.body("Planet not found");
-	}	
+	
+	//Sem conexão disponível dentro do timeout (pool esgotado): o cliente pode tentar de novo
+	@ExceptionHandler({ CannotCreateTransactionException.class, DataAccessResourceFailureException.class })
+	private ResponseEntity<Object> handleUnavailable(Exception ex) {
+		count(HttpStatus.SERVICE_UNAVAILABLE, ex);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.body("Database busy, try again");
+	}
+	
+	//Back-pressure da ingestão assíncrona
+	@ExceptionHandler(IngestQueueFullException.class)
+	private ResponseEntity<Object> handleQueueFull(IngestQueueFullException ex) {
+		count(HttpStatus.SERVICE_UNAVAILABLE, ex);
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body(ex.getMessage());
+	}
+	
+	//Réplica somente-leitura: só GET é aceito
+	@ExceptionHandler(ReadOnlyReplicaException.class)
+	private ResponseEntity<Object> handleReadOnly(ReadOnlyReplicaException ex) {
+		count(HttpStatus.METHOD_NOT_ALLOWED, ex);
+		return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED)
+				.allow(HttpMethod.GET, HttpMethod.HEAD)
+				.body(ex.getMessage());
+	}
+	
+	//JSON malformado no meio de uma importação em massa (lido em streaming)
+	@ExceptionHandler(RuntimeJsonMappingException.class)
+	private ResponseEntity<Object> handleMalformedJson(RuntimeJsonMappingException ex) {
+		count(HttpStatus.BAD_REQUEST, ex);
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+				.body(ex.getMessage());
+	}
+	
+	//404 montados pelo próprio controller (sem exceção)
+	static void countNotFound() {
+		count(HttpStatus.NOT_FOUND, "none");
+	}
+	
+	private static void count(HttpStatusCode outcome, Exception ex) {
+		count(outcome, ex.getClass().getSimpleName());
+	}
+	
+	//Registry global: o Boot registra nele os registries auto-configurados (inclusive o Prometheus)
+	private static void count(HttpStatusCode outcome, String exception) {
+		Metrics.counter(ERRORS_METRIC, "outcome", String.valueOf(outcome.value()), "exception", exception).increment();
+	}
 }
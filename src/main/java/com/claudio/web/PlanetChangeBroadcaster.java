@@ -0,0 +1,137 @@
+package com.claudio.web;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.claudio.domain.PlanetChangeFeed;
+import com.claudio.domain.PlanetEvent;
+
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Entrega o PlanetChangeFeed aos assinantes SSE de /planets/changes. Assinante parado não ocupa thread
+ * (requisição async); a cada evento novo, cada assinante é drenado numa virtual thread, no máximo uma por vez,
+ * a partir do seu próprio cursor. Assim um cliente lento não atrasa os outros nem quem publicou.
+ */
+@Component
+public class PlanetChangeBroadcaster {
+	
+	private final PlanetChangeFeed changeFeed;
+	
+	private final Duration timeout;
+	
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	
+	private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+	
+	private static final class Subscriber {
+		
+		private final SseEmitter emitter;
+		
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+		
+		private volatile boolean heartbeat;
+		
+		//Último seq entregue; só é tocado pela drenagem em curso
+		private long cursor;
+		
+		private Subscriber(SseEmitter emitter, long cursor) {
+			this.emitter = emitter;
+			this.cursor = cursor;
+		}
+	}
+	
+	public PlanetChangeBroadcaster(PlanetChangeFeed changeFeed,
+			@Value("${planets.changes.feed.timeout:PT30M}") Duration timeout) {
+		this.changeFeed = changeFeed;
+		this.timeout = timeout;
+		changeFeed.addListener(() -> subscribers.forEach(this::signal));
+		Metrics.gauge("planets.changes.subscribers", subscribers, Set::size);
+	}
+	
+	/**
+	 * Sem lastEventId começa do evento atual; com ele, reenvia o que ficou no buffer desde então
+	 * (ou um evento reset, se já saiu do buffer: o cliente deve reler GET /planets).
+	 */
+	public SseEmitter subscribe(Long lastEventId) {
+		SseEmitter emitter = new SseEmitter(timeout.toMillis());
+		Subscriber subscriber = new Subscriber(emitter, lastEventId == null ? changeFeed.lastSeq() : lastEventId);
+		
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(ex -> subscribers.remove(subscriber));
+		subscribers.add(subscriber);
+		signal(subscriber);
+		return emitter;
+	}
+	
+	//Mantém proxies/balanceadores com a conexão aberta e descobre clientes que já foram embora
+	@Scheduled(fixedDelayString = "${planets.changes.feed.heartbeat:PT15S}")
+	public void heartbeat() {
+		subscribers.forEach(subscriber -> {
+			subscriber.heartbeat = true;
+			signal(subscriber);
+		});
+	}
+	
+	@PreDestroy
+	public void stop() {
+		subscribers.forEach(subscriber -> subscriber.emitter.complete());
+		senders.shutdownNow();
+	}
+	
+	private void signal(Subscriber subscriber) {
+		if (subscriber.scheduled.compareAndSet(false, true)) {
+			senders.execute(() -> drain(subscriber));
+		}
+	}
+	
+	private void drain(Subscriber subscriber) {
+		try {
+			do {
+				send(subscriber);
+				subscriber.scheduled.set(false);
+			} while (changeFeed.lastSeq() > subscriber.cursor && subscriber.scheduled.compareAndSet(false, true));
+		} catch (IOException | IllegalStateException ex) {
+			//Cliente desconectado (ou emitter já encerrado)
+			subscribers.remove(subscriber);
+		}
+	}
+	
+	private void send(Subscriber subscriber) throws IOException {
+		Optional<List<PlanetEvent>> events = changeFeed.since(subscriber.cursor);
+		if (events.isEmpty()) {
+			long lastSeq = changeFeed.lastSeq();
+			subscriber.emitter.send(SseEmitter.event().id(String.valueOf(lastSeq)).name("reset").data(lastSeq));
+			subscriber.cursor = lastSeq;
+			return;
+		}
+		for (PlanetEvent event : events.get()) {
+			subscriber.emitter.send(SseEmitter.event()
+					.id(String.valueOf(event.seq()))
+					.name(event.type().name().toLowerCase(Locale.ROOT))
+					.data(event, MediaType.APPLICATION_JSON));
+			subscriber.cursor = event.seq();
+		}
+		if (events.get().isEmpty() && subscriber.heartbeat) {
+			subscriber.emitter.send(SseEmitter.event().comment("keep-alive"));
+		}
+		subscriber.heartbeat = false;
+	}
+
+}
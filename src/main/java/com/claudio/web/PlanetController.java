@@ -1,21 +1,47 @@
 package com.claudio.web;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import com.claudio.domain.ImportReport;
+import com.claudio.domain.IngestTicket;
 import com.claudio.domain.Planet;
+import com.claudio.domain.PlanetImporter;
+import com.claudio.domain.PlanetLookup;
 import com.claudio.domain.PlanetService;
+import com.claudio.domain.PlanetStats;
+import com.claudio.domain.PlanetWriteBehindQueue;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 
 import jakarta.validation.Valid;
 
@@ -23,47 +49,275 @@ import jakarta.validation.Valid;
 @RestController
 @RequestMapping("/planets")
 public class PlanetController {
+	public static final String NDJSON = "application/x-ndjson";
+	public static final String NEXT_AFTER_HEADER = "X-Next-After";
+	public static final String REMOVED_COUNT_HEADER = "X-Removed-Count";
+	public static final int MAX_PAGE_SIZE = 1000;
+	public static final int MAX_SEARCH_RESULTS = 100;
+	public static final int MAX_SEARCH_EDITS = 2;
+	
 	@Autowired
 	private PlanetService planetService;
 	
+	@Autowired
+	private PlanetImporter planetImporter;
+	
+	@Autowired
+	private ObjectMapper objectMapper;
+	
+	//Só existe com planets.ingest.async=true
+	@Autowired(required = false)
+	private PlanetWriteBehindQueue writeBehindQueue;
+	
+	@Autowired
+	private PlanetChangeBroadcaster changeBroadcaster;
+	
+	@Value("${planets.batch-get.max-keys:100}")
+	private int maxBatchKeys;
+	
+	@Value("${planets.http.max-age:0s}")
+	private Duration maxAge;
+	
+	/**
+	 * Na ingestão assíncrona responde 202 com o ticket e o Location para acompanhar a gravação;
+	 * com a fila cheia, 503.
+	 */
 	@PostMapping
-	public ResponseEntity<Planet> create(@RequestBody @Valid Planet planet) {
+	public ResponseEntity<?> create(@RequestBody @Valid Planet planet) {
+		
+		if (writeBehindQueue != null) {
+			IngestTicket ticket = writeBehindQueue.enqueue(planet);
+			URI location = ServletUriComponentsBuilder.fromCurrentRequest().path("/ingest/{ticket}")
+					.buildAndExpand(ticket.id()).toUri();
+			return ResponseEntity.accepted().location(location).body(ticket);
+		}
 		
 		Planet planetCreated = planetService.create(planet);
 		
 		return ResponseEntity.status(HttpStatus.CREATED).body(planetCreated);
 	}
 	
+	/**
+	 * Aceita um array JSON ou NDJSON (um planeta por linha); o corpo é lido em streaming, sem montar a lista inteira.
+	 */
+	@PostMapping(value = "/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, NDJSON })
+	public ResponseEntity<ImportReport> bulkCreate(InputStream body) throws IOException {
+		
+		try (MappingIterator<Planet> planets = objectMapper.readerFor(Planet.class).readValues(body)) {
+			return ResponseEntity.ok(planetImporter.importPlanets(planets));
+		}
+	}
+	
 	@GetMapping("/{id}")
-	public ResponseEntity<Planet> find(@PathVariable Long id) {
+	public ResponseEntity<Planet> find(@PathVariable Long id, WebRequest request) {
 		
-		return planetService.get(id).map(planet -> ResponseEntity.ok(planet))
-				.orElseGet(() -> ResponseEntity.notFound().build());
+		if (notModified(planetService.versionTag(id), request)) {
+			return null;
+		}
+		return planetService.get(id).map(planet -> ok(planet))
+				.orElseGet(PlanetController::notFound);
 		
 	}
 	
+	/**
+	 * Vários planetas por id e/ou nome numa só requisição (e numa só consulta), na ordem pedida:
+	 * primeiro os ids, depois os nomes, cada um com found = false quando não existe.
+	 */
+	@PostMapping("/batch-get")
+	public ResponseEntity<List<PlanetLookup>> batchGet(@RequestBody BatchGetRequest keys) {
+		
+		return batchGet(keys.ids(), keys.names());
+	}
+	
+	@GetMapping("/batch-get")
+	public ResponseEntity<List<PlanetLookup>> batchGet(@RequestParam(required = false) List<Long> ids,
+			@RequestParam(required = false) List<String> names) {
+		
+		List<Long> idKeys = ids == null ? List.of() : ids;
+		List<String> nameKeys = names == null ? List.of() : names;
+		if (idKeys.size() + nameKeys.size() > maxBatchKeys) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatchKeys + " keys per request");
+		}
+		if (idKeys.stream().anyMatch(Objects::isNull) || nameKeys.stream().anyMatch(Objects::isNull)) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Keys must not be null");
+		}
+		
+		return ResponseEntity.ok(planetService.getAll(idKeys, nameKeys));
+	}
+	
+	@GetMapping("/ingest/{ticket}")
+	public ResponseEntity<IngestTicket> ingestStatus(@PathVariable String ticket) {
+		
+		return Optional.ofNullable(writeBehindQueue).flatMap(queue -> queue.status(ticket))
+				.map(ResponseEntity::ok)
+				.orElseGet(PlanetController::notFound);
+	}
+	
 	@GetMapping("/name/{name}")
-	public ResponseEntity<Planet> findName(@PathVariable String name) { 
+	public ResponseEntity<Planet> findName(@PathVariable String name, WebRequest request) { 
+		
+		if (notModified(planetService.versionTagByName(name), request)) {
+			return null;
+		}
+		return planetService.getByName(name).map(planet -> ok(planet))
+				.orElseGet(PlanetController::notFound);
+	}
+	
+	/**
+	 * Autocomplete: prefixo do nome sem diferenciar maiúsculas; fuzzy > 0 aceita erros de digitação (distância de edição).
+	 */
+	@GetMapping("/search")
+	public ResponseEntity<List<Planet>> search(@RequestParam String q,
+			@RequestParam(defaultValue = "10") int limit,
+			@RequestParam(defaultValue = "0") int fuzzy) {
+		
+		int maxResults = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+		int maxEdits = Math.max(0, Math.min(fuzzy, MAX_SEARCH_EDITS));
 		
-		return planetService.getByName(name).map(planet -> ResponseEntity.ok(planet))
-				.orElseGet(() -> ResponseEntity.notFound().build());
+		return ResponseEntity.ok(planetService.search(q, maxEdits, maxResults));
 	}
 	
+	/**
+	 * Sem limit devolve a lista inteira; com limit devolve uma página (keyset por id)
+	 * e o cabeçalho X-Next-After com o cursor da próxima página, quando houver.
+	 */
 	@GetMapping
 	public ResponseEntity<List<Planet>> list(@RequestParam(required = false) String terrain, 
-			@RequestParam(required = false) String climate){
+			@RequestParam(required = false) String climate,
+			@RequestParam(required = false) Integer limit,
+			@RequestParam(required = false) Long after,
+			WebRequest request){
 		
-		List<Planet> planets = planetService.list(climate, terrain);
+		//A versão é lida antes da consulta: se a coleção mudar no meio, o próximo poll só recebe um ETag novo.
+		//Sem versão (leitura na réplica), a resposta vai sem ETag
+		Optional<String> versionTag = planetService.listVersionTag(climate, terrain, limit != null).map(tag -> "c" + tag);
+		if (notModified(versionTag, request)) {
+			return null;
+		}
 		
-		return ResponseEntity.ok(planets);
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(cacheControl());
+		versionTag.ifPresent(tag -> response.eTag(weak(tag)));
+		
+		if (limit == null) {
+			List<Planet> planets = planetService.list(climate, terrain);
+			
+			return response.body(planets);
+		}
+		
+		int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+		List<Planet> page = planetService.page(climate, terrain, after, pageSize);
+		
+		if (page.size() == pageSize) {
+			response.header(NEXT_AFTER_HEADER, String.valueOf(page.get(page.size() - 1).getId()));
+		}
+		return response.body(page);
+	}
+	
+	/**
+	 * Contagens por climate, terrain e par climate×terrain, mantidas em memória; 503 enquanto o índice carrega.
+	 */
+	@GetMapping("/stats")
+	public ResponseEntity<PlanetStats> stats(WebRequest request) {
+		
+		//Mesma versão da coleção usada pelas listas: os agregados só mudam junto com ela
+		Optional<String> versionTag = planetService.listVersionTag().map(tag -> "c" + tag);
+		if (notModified(versionTag, request)) {
+			return null;
+		}
+		
+		return planetService.stats().map(stats -> {
+			ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(cacheControl());
+			versionTag.ifPresent(tag -> response.eTag(weak(tag)));
+			return response.body(stats);
+		}).orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build());
+	}
+	
+	/**
+	 * Server-Sent Events com as criações e remoções (id = seq do evento); o EventSource reenvia o Last-Event-ID
+	 * ao reconectar e recebe o que perdeu.
+	 */
+	@GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter changes(@RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+		
+		return changeBroadcaster.subscribe(lastEventId);
+	}
+	
+	/**
+	 * Escreve um planeta por linha (NDJSON) à medida que as linhas saem do cursor JDBC.
+	 */
+	@GetMapping(value = "/stream", produces = NDJSON)
+	public ResponseEntity<StreamingResponseBody> stream(@RequestParam(required = false) String terrain, 
+			@RequestParam(required = false) String climate) {
+		
+		StreamingResponseBody body = out -> {
+			try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+				planetService.stream(climate, terrain, planet -> {
+					try {
+						writer.write(planet);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			}
+		};
+		
+		return ResponseEntity.ok().body(body);
+	}
+	
+	private ResponseEntity<Planet> ok(Planet planet) {
+		return ResponseEntity.ok()
+				.eTag(weak(planet.getId() + "-" + planet.currentVersion()))
+				.cacheControl(cacheControl())
+				.body(planet);
+	}
+	
+	/**
+	 * Decide o 304 só com a versão; o checkNotModified já escreve o status e o ETag na resposta.
+	 */
+	private boolean notModified(Optional<String> versionTag, WebRequest request) {
+		return versionTag.isPresent() && request.checkNotModified(weak(versionTag.get()));
+	}
+	
+	private CacheControl cacheControl() {
+		return CacheControl.maxAge(maxAge).mustRevalidate();
+	}
+	
+	//Conta no planets.errors, como os erros que passam pelo GeneralExceptionHandler
+	private static <T> ResponseEntity<T> notFound() {
+		GeneralExceptionHandler.countNotFound();
+		return ResponseEntity.notFound().build();
+	}
+	
+	//Fraco: a mesma versão serve JSON, CBOR, Smile e protobuf, com ou sem gzip (o Tomcat não comprime com ETag forte)
+	private static String weak(String tag) {
+		return "W/\"" + tag + "\"";
 	}
 	
 	@DeleteMapping("/{id}")
 	public ResponseEntity<Void> remove(@PathVariable Long id) {
 		
-		planetService.remove(id);
+		if (!planetService.remove(id)) {
+			return notFound();
+		}
         return ResponseEntity.noContent().build();
 	}
 	
+	/**
+	 * Remove vários planetas num único DELETE; X-Removed-Count informa quantos existiam.
+	 */
+	@DeleteMapping
+	public ResponseEntity<Void> removeAll(@RequestParam List<Long> ids) {
+		
+		if (ids.size() > MAX_PAGE_SIZE) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_PAGE_SIZE + " ids per request");
+		}
+		
+		int removed = planetService.removeAll(ids);
+		if (removed == 0) {
+			return notFound();
+		}
+		return ResponseEntity.noContent().header(REMOVED_COUNT_HEADER, String.valueOf(removed)).build();
+	}
+	
 
 }
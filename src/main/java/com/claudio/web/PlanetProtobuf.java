@@ -0,0 +1,148 @@
+package com.claudio.web;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.MediaType;
+
+import com.claudio.domain.Planet;
+
+/**
+ * Codificação protobuf do Planet escrita à mão (sem protoc), equivalente a:
+ * 
+ * message Planet { int64 id = 1; string name = 2; string climate = 3; string terrain = 4; }
+ * 
+ * Cada mensagem vai precedida do seu tamanho em varint (como o writeDelimitedTo do protobuf-java),
+ * então uma lista é apenas uma sequência de mensagens.
+ */
+final class PlanetProtobuf {
+	
+	static final MediaType MEDIA_TYPE = new MediaType("application", "x-protobuf");
+	
+	private static final int ID = 1 << 3;
+	private static final int NAME = 2 << 3 | 2;
+	private static final int CLIMATE = 3 << 3 | 2;
+	private static final int TERRAIN = 4 << 3 | 2;
+	
+	private PlanetProtobuf() {
+		
+	}
+	
+	static void writeDelimited(Planet planet, OutputStream out) throws IOException {
+		byte[] name = bytes(planet.getName());
+		byte[] climate = bytes(planet.getClimate());
+		byte[] terrain = bytes(planet.getTerrain());
+		
+		int size = 0;
+		if (planet.getId() != null) {
+			size += 1 + varintSize(planet.getId());
+		}
+		size += fieldSize(name) + fieldSize(climate) + fieldSize(terrain);
+		
+		writeVarint(out, size);
+		if (planet.getId() != null) {
+			out.write(ID);
+			writeVarint(out, planet.getId());
+		}
+		writeField(out, NAME, name);
+		writeField(out, CLIMATE, climate);
+		writeField(out, TERRAIN, terrain);
+	}
+	
+	/**
+	 * Lê a próxima mensagem; null no fim do stream. Campos desconhecidos são ignorados.
+	 */
+	static Planet readDelimited(InputStream in) throws IOException {
+		int first = in.read();
+		if (first < 0) {
+			return null;
+		}
+		long size = readVarint(in, first);
+		
+		Planet planet = new Planet();
+		long read = 0;
+		while (read < size) {
+			int tag = (int) readVarint(in, in.read());
+			read += varintSize(tag);
+			switch (tag & 7) {
+				case 0 -> {
+					long value = readVarint(in, in.read());
+					read += varintSize(value);
+					if (tag == ID) {
+						planet.setId(value);
+					}
+				}
+				case 2 -> {
+					int length = (int) readVarint(in, in.read());
+					byte[] value = in.readNBytes(length);
+					if (value.length < length) {
+						throw new IOException("Truncated protobuf message");
+					}
+					read += varintSize(length) + length;
+					String text = new String(value, StandardCharsets.UTF_8);
+					switch (tag) {
+						case NAME -> planet.setName(text);
+						case CLIMATE -> planet.setClimate(text);
+						case TERRAIN -> planet.setTerrain(text);
+						default -> {
+						}
+					}
+				}
+				default -> throw new IOException("Unsupported protobuf wire type " + (tag & 7));
+			}
+		}
+		return planet;
+	}
+	
+	private static byte[] bytes(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+	
+	private static int fieldSize(byte[] value) {
+		return value == null ? 0 : 1 + varintSize(value.length) + value.length;
+	}
+	
+	private static void writeField(OutputStream out, int tag, byte[] value) throws IOException {
+		if (value != null) {
+			out.write(tag);
+			writeVarint(out, value.length);
+			out.write(value);
+		}
+	}
+	
+	private static int varintSize(long value) {
+		int size = 1;
+		while ((value & ~0x7FL) != 0) {
+			value >>>= 7;
+			size++;
+		}
+		return size;
+	}
+	
+	private static void writeVarint(OutputStream out, long value) throws IOException {
+		while ((value & ~0x7FL) != 0) {
+			out.write((int) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+	
+	private static long readVarint(InputStream in, int first) throws IOException {
+		long value = 0;
+		int b = first;
+		for (int shift = 0; shift < 64; shift += 7) {
+			if (b < 0) {
+				throw new IOException("Truncated protobuf message");
+			}
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+			b = in.read();
+		}
+		throw new IOException("Malformed protobuf varint");
+	}
+
+}
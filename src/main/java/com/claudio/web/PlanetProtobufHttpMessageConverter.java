@@ -0,0 +1,83 @@
+package com.claudio.web;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import com.claudio.domain.Planet;
+
+/**
+ * application/x-protobuf para um Planet (leitura e escrita) e para listas de Planet (escrita).
+ */
+public class PlanetProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+	
+	public PlanetProtobufHttpMessageConverter() {
+		super(PlanetProtobuf.MEDIA_TYPE);
+	}
+	
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Planet.class.isAssignableFrom(clazz);
+	}
+	
+	//O padrão pergunta canWrite(ArrayList.class, null), que sem o tipo genérico não sabe que é lista de Planet;
+	//sem isto o Accept application/x-protobuf em GET /planets acabava em 406
+	@Override
+	public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+		return supports(clazz) || Collection.class.isAssignableFrom(clazz) ? getSupportedMediaTypes() : List.of();
+	}
+	
+	@Override
+	public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+		return canWrite(mediaType) && (supports(clazz) || isPlanetCollection(type));
+	}
+	
+	@Override
+	public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+		return type == Planet.class && canRead(mediaType);
+	}
+	
+	@Override
+	public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+		return readInternal(Planet.class, inputMessage);
+	}
+	
+	@Override
+	protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+		Planet planet = PlanetProtobuf.readDelimited(inputMessage.getBody());
+		if (planet == null) {
+			throw new HttpMessageNotReadableException("Empty protobuf body", inputMessage);
+		}
+		return planet;
+	}
+	
+	@Override
+	protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+		OutputStream out = new BufferedOutputStream(outputMessage.getBody());
+		if (value instanceof Planet planet) {
+			PlanetProtobuf.writeDelimited(planet, out);
+		} else {
+			for (Object planet : (Collection<?>) value) {
+				PlanetProtobuf.writeDelimited((Planet) planet, out);
+			}
+		}
+		out.flush();
+	}
+	
+	private static boolean isPlanetCollection(Type type) {
+		return type instanceof ParameterizedType parameterized
+				&& parameterized.getRawType() instanceof Class<?> raw && Collection.class.isAssignableFrom(raw)
+				&& parameterized.getActualTypeArguments()[0] == Planet.class;
+	}
+
+}
@@ -0,0 +1,11 @@
+-- Mesmo schema das migrações do PostgreSQL, para os testes com H2
+
+create sequence if not exists planets_seq start with 1 increment by 50;
+
+create table if not exists planets (
+  id bigint primary key,
+  name varchar(255) not null unique,
+  climate varchar(255) not null,
+  terrain varchar(255) not null,
+  version bigint
+);
@@ -0,0 +1,27 @@
+-- Dicionários de climate/terrain e tabelas de junção (sem o preenchimento a partir do texto:
+-- as bases H2 dos testes começam vazias)
+
+create table if not exists climates (
+  id smallint generated by default as identity primary key,
+  name varchar(255) not null unique
+);
+
+create table if not exists terrains (
+  id smallint generated by default as identity primary key,
+  name varchar(255) not null unique
+);
+
+create table if not exists planet_climates (
+  planet_id bigint not null references planets (id) on delete cascade,
+  climate_id smallint not null references climates (id),
+  primary key (planet_id, climate_id)
+);
+
+create table if not exists planet_terrains (
+  planet_id bigint not null references planets (id) on delete cascade,
+  terrain_id smallint not null references terrains (id),
+  primary key (planet_id, terrain_id)
+);
+
+create index if not exists planet_climates_climate_idx on planet_climates (climate_id, planet_id);
+create index if not exists planet_terrains_terrain_idx on planet_terrains (terrain_id, planet_id);
@@ -0,0 +1,4 @@
+-- O H2 não tem índice funcional (lower()) nem trigramas: índices simples nas mesmas colunas
+
+create index if not exists planets_climate_lower_idx on planets (climate);
+create index if not exists planets_terrain_lower_idx on planets (terrain);
@@ -0,0 +1,13 @@
+-- Outbox das alterações de planetas (gravado na mesma transação da alteração) lido pelo poller de cada nó.
+-- Identity (e não sequência com incremento 50): ids quase em ordem de commit, buracos só por rollback/transação em curso
+
+create table if not exists planet_changes (
+  id bigint generated by default as identity primary key,
+  planet_id bigint not null,
+  name varchar(255),
+  type varchar(16) not null,
+  origin varchar(36) not null,
+  changed_at timestamp(6) with time zone not null
+);
+
+create index if not exists planet_changes_changed_at_idx on planet_changes (changed_at);
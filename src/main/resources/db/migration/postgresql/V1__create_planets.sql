@@ -0,0 +1,18 @@
+-- Tabela original (antes criada pelo ddl-auto=update); "if not exists" para bases que já a têm.
+-- Incremento 50 = allocationSize do @SequenceGenerator do Planet (inserts em batch)
+
+create sequence if not exists planets_seq start with 1 increment by 50;
+
+create table if not exists planets (
+  id bigint primary key,
+  name varchar(255) not null unique,
+  climate varchar(255) not null,
+  terrain varchar(255) not null,
+  version bigint
+);
+
+-- Bases antigas (ddl-auto, id IDENTITY): a tabela acima é pulada, então falta a coluna do @Version
+-- e a sequence precisa começar depois dos ids já usados
+alter table planets add column if not exists version bigint default 0;
+
+select setval('planets_seq', greatest((select last_value from planets_seq), coalesce(max(id), 0) + 1)) from planets;
@@ -0,0 +1,56 @@
+-- Normaliza climate/terrain (PostgreSQL): dicionários com código smallint e tabelas de junção,
+-- preenchidos a partir das colunas texto de planets ("temperate, tropical" -> temperate, tropical).
+-- As colunas texto continuam sendo a forma exposta pela API; os filtros passam a usar os códigos.
+-- Idempotente: também serve para bases em que o Hibernate (ddl-auto) já tinha criado as tabelas.
+
+create table if not exists climates (
+  id smallint generated by default as identity primary key,
+  name varchar(255) not null unique
+);
+
+create table if not exists terrains (
+  id smallint generated by default as identity primary key,
+  name varchar(255) not null unique
+);
+
+create table if not exists planet_climates (
+  planet_id bigint not null references planets (id) on delete cascade,
+  climate_id smallint not null references climates (id),
+  primary key (planet_id, climate_id)
+);
+
+create table if not exists planet_terrains (
+  planet_id bigint not null references planets (id) on delete cascade,
+  terrain_id smallint not null references terrains (id),
+  primary key (planet_id, terrain_id)
+);
+
+-- Filtro por código: (código, planeta) para achar os planetas de um token sem tocar em planets
+create index if not exists planet_climates_climate_idx on planet_climates (climate_id, planet_id);
+create index if not exists planet_terrains_terrain_idx on planet_terrains (terrain_id, planet_id);
+
+insert into climates (name)
+select distinct trim(token)
+from planets, regexp_split_to_table(lower(climate), ',') as token
+where trim(token) <> ''
+on conflict (name) do nothing;
+
+insert into terrains (name)
+select distinct trim(token)
+from planets, regexp_split_to_table(lower(terrain), ',') as token
+where trim(token) <> ''
+on conflict (name) do nothing;
+
+insert into planet_climates (planet_id, climate_id)
+select distinct p.id, c.id
+from planets p
+cross join lateral regexp_split_to_table(lower(p.climate), ',') as token
+join climates c on c.name = trim(token)
+on conflict do nothing;
+
+insert into planet_terrains (planet_id, terrain_id)
+select distinct p.id, t.id
+from planets p
+cross join lateral regexp_split_to_table(lower(p.terrain), ',') as token
+join terrains t on t.name = trim(token)
+on conflict do nothing;
@@ -0,0 +1,13 @@
+-- Índices para as consultas case-insensitive: findByName (lower(name) = lower(?)) e os filtros
+-- do QueryBuilder (Example com ignoreCase gera lower(climate) = lower(?)).
+-- Os GIN de trigramas atendem buscas por trecho (like '%tropical%') sobre as listas em texto.
+-- Nomes conferidos na subida pelo SchemaIndexVerifier.
+
+create extension if not exists pg_trgm;
+
+create index if not exists planets_name_lower_idx on planets (lower(name));
+create index if not exists planets_climate_lower_idx on planets (lower(climate));
+create index if not exists planets_terrain_lower_idx on planets (lower(terrain));
+
+create index if not exists planets_climate_trgm_idx on planets using gin (lower(climate) gin_trgm_ops);
+create index if not exists planets_terrain_trgm_idx on planets using gin (lower(terrain) gin_trgm_ops);
@@ -0,0 +1,52 @@
+package com.claudio.benchmark;
+
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.claudio.SwPlanetApiApplication;
+import com.claudio.common.CommandLineArgs;
+import com.claudio.domain.Planet;
+import com.claudio.domain.PlanetImporter;
+
+/**
+ * Sobe a aplicação (sem servidor web) com H2 e carrega uma quantidade configurável de planetas.
+ */
+public class BenchmarkApplication {
+	
+	public static final String[] CLIMATES = { "arid", "temperate", "tropical", "frozen", "murky", "windy", "polluted" };
+	public static final String[] TERRAINS = { "desert", "grasslands", "mountains", "jungle", "tundra", "swamp", "ocean", "cityscape" };
+	
+	public static ConfigurableApplicationContext start(int size, String... properties) {
+		ConfigurableApplicationContext context = new SpringApplicationBuilder(SwPlanetApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.run(args(properties));
+		
+		context.getBean(PlanetImporter.class).importPlanets(planets(size));
+		return context;
+	}
+	
+	//Padrões primeiro: as propriedades de quem chama prevalecem
+	private static String[] args(String... properties) {
+		String[] all = new String[properties.length + 2];
+		all[0] = "spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1";
+		all[1] = "logging.level.root=WARN";
+		System.arraycopy(properties, 0, all, 2, properties.length);
+		return CommandLineArgs.of(all);
+	}
+	
+	public static Planet planet(int i) {
+		return new Planet("planet-" + i,
+				CLIMATES[i % CLIMATES.length] + ", " + CLIMATES[(i / CLIMATES.length) % CLIMATES.length],
+				TERRAINS[i % TERRAINS.length]);
+	}
+	
+	public static Iterator<Planet> planets(int size) {
+		return IntStream.range(0, size).mapToObj(BenchmarkApplication::planet).iterator();
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.claudio.benchmark;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.claudio.domain.Planet;
+import com.claudio.domain.PlanetLookup;
+import com.claudio.domain.PlanetRepository;
+import com.claudio.domain.PlanetService;
+import com.claudio.domain.QueryBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Caminhos quentes do PlanetService contra H2. Resultado em target/jmh-result.json (perfil benchmark).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlanetServiceBenchmark {
+	
+	private static final int BATCH = 50;
+	
+	@Param({ "1000" })
+	public int size;
+	
+	private ConfigurableApplicationContext context;
+	
+	private PlanetService planetService;
+	
+	private PlanetRepository planetRepository;
+	
+	private ObjectMapper objectMapper;
+	
+	private List<Planet> planets;
+	
+	private final AtomicLong created = new AtomicLong();
+	
+	@Setup
+	public void setup() {
+		context = BenchmarkApplication.start(size);
+		planetService = context.getBean(PlanetService.class);
+		planetRepository = context.getBean(PlanetRepository.class);
+		objectMapper = context.getBean(ObjectMapper.class);
+		planets = planetService.list(null, null);
+	}
+	
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+	
+	private Planet randomPlanet() {
+		return planets.get(ThreadLocalRandom.current().nextInt(planets.size()));
+	}
+	
+	@Benchmark
+	public Optional<Planet> get() {
+		return planetService.get(randomPlanet().getId());
+	}
+	
+	@Benchmark
+	public Optional<Planet> getByName() {
+		return planetService.getByName(randomPlanet().getName());
+	}
+	
+	//Uma página de frota: BATCH consultas por id (sem cache) contra um único batch-get com lista IN
+	@Benchmark
+	public List<Optional<Planet>> getEachById() {
+		List<Long> ids = randomIds();
+		return ids.stream().map(planetRepository::findById).toList();
+	}
+	
+	@Benchmark
+	public List<PlanetLookup> batchGet() {
+		return planetService.getAll(randomIds(), List.of());
+	}
+	
+	private List<Long> randomIds() {
+		return ThreadLocalRandom.current().ints(BATCH, 0, planets.size()).mapToObj(i -> planets.get(i).getId()).toList();
+	}
+	
+	@Benchmark
+	public List<Planet> listFiltered() {
+		return planetService.list("temperate", "grasslands");
+	}
+	
+	@Benchmark
+	public List<Planet> listByExample() {
+		Planet filter = randomPlanet();
+		return planetRepository.findAll(QueryBuilder.makeQuery(new Planet(null, filter.getClimate(), filter.getTerrain())));
+	}
+	
+	@Benchmark
+	public Planet create() {
+		return planetService.create(new Planet("created-" + created.incrementAndGet(), "arid", "desert"));
+	}
+	
+	@Benchmark
+	public byte[] serializeList() throws Exception {
+		return objectMapper.writeValueAsBytes(planets);
+	}
+
+}
@@ -0,0 +1,125 @@
+package com.claudio.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import com.claudio.domain.Planet;
+import com.claudio.web.PlanetProtobufHttpMessageConverter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * CPU e bytes na rede para serializar uma lista grande de planetas em cada formato negociável,
+ * com e sem gzip. O tamanho de cada combinação sai no resultado como contador auxiliar (bytes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+	
+	@Param({ "1000" })
+	public int size;
+	
+	@Param({ "json", "cbor", "smile", "protobuf" })
+	public String format;
+	
+	@Param({ "none", "gzip" })
+	public String compression;
+	
+	private static final String[] CLIMATES = { "arid", "temperate", "tropical", "frozen", "murky" };
+	
+	private static final String[] TERRAINS = { "desert", "grasslands, mountains", "jungle, rainforests", "tundra, ice caves", "swamp" };
+	
+	private List<Planet> planets;
+	
+	private GenericHttpMessageConverter<Object> converter;
+	
+	private MediaType mediaType;
+	
+	@Setup
+	public void setup() {
+		planets = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			planets.add(new Planet((long) i + 1, "planet-" + i, CLIMATES[i % CLIMATES.length], TERRAINS[i % TERRAINS.length]));
+		}
+		Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+		switch (format) {
+			case "json" -> converter = new MappingJackson2HttpMessageConverter(builder.build());
+			case "cbor" -> converter = new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+			case "smile" -> converter = new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+			case "protobuf" -> converter = new PlanetProtobufHttpMessageConverter();
+			default -> throw new IllegalArgumentException(format);
+		}
+		mediaType = converter.getSupportedMediaTypes().get(0);
+	}
+	
+	//Bytes na rede de uma escrita (a saída é determinística), publicados pelo JMH ao lado do tempo como "bytes"
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class WireSize {
+		public long bytes;
+	}
+	
+	//Mesmo caminho do Spring MVC: converter.write(List<Planet>) no corpo da resposta, comprimido como o Tomcat faria
+	@Benchmark
+	public byte[] writeList(WireSize wireSize) throws IOException {
+		ByteArrayOutputStream body = new ByteArrayOutputStream(64 * 1024);
+		if ("gzip".equals(compression)) {
+			try (GZIPOutputStream gzip = new GZIPOutputStream(body, 8192)) {
+				write(gzip);
+			}
+		} else {
+			write(body);
+		}
+		wireSize.bytes = body.size();
+		return body.toByteArray();
+	}
+	
+	private void write(OutputStream out) throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		converter.write(planets, ResolvableType.forClassWithGenerics(List.class, Planet.class).getType(), mediaType,
+				new HttpOutputMessage() {
+					
+					@Override
+					public HttpHeaders getHeaders() {
+						return headers;
+					}
+					
+					@Override
+					public OutputStream getBody() {
+						return out;
+					}
+				});
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.claudio.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Propriedades "chave=valor" como argumentos de linha de comando ("--chave=valor"), que têm precedência sobre
+ * application*.properties (o SpringApplicationBuilder.properties só define valores padrão, que esses arquivos
+ * sobrescrevem). Com a mesma chave mais de uma vez vale a última, em vez da lista "a,b" da linha de comando.
+ */
+public final class CommandLineArgs {
+	
+	private CommandLineArgs() {
+	}
+	
+	public static String[] of(String... properties) {
+		Map<String, String> args = new LinkedHashMap<>();
+		for (String property : properties) {
+			args.put(property.substring(0, property.indexOf('=')), "--" + property);
+		}
+		return args.values().toArray(String[]::new);
+	}
+
+}
@@ -0,0 +1,149 @@
+package com.claudio.common;
+
+import static com.claudio.common.PlanetConstants.PLANET;
+import static com.claudio.common.PlanetConstants.PLANETS;
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.claudio.domain.Planet;
+
+/**
+ * Contrato /planets comum às duas pilhas: cada subclasse liga o WebTestClient ao seu controller
+ * e traduz os "given" para o mock do seu service.
+ */
+public abstract class PlanetControllerScenarios {
+
+	protected abstract WebTestClient webTestClient();
+
+	protected abstract void givenCreated(Planet planet);
+
+	protected abstract void givenDuplicateName();
+
+	//planet nulo: não encontrado
+	protected abstract void givenPlanet(Long id, Planet planet);
+
+	protected abstract void givenPlanetNamed(String name, Planet planet);
+
+	protected abstract void givenList(String climate, String terrain, List<Planet> planets);
+
+	protected abstract void givenRemoved(Long id, boolean removed);
+
+	@Test
+	public void createPlanet_WithValidData_ReturnsCreated() {
+		givenCreated(PLANET);
+
+		webTestClient().post().uri("/planets").contentType(MediaType.APPLICATION_JSON).bodyValue(PLANET)
+		.exchange()
+		.expectStatus().isCreated()
+		.expectBody(Planet.class).isEqualTo(PLANET);
+	}
+
+	@Test
+	public void createPlanet_WithInvalidData_ReturnsUnprocessableEntity() {
+		webTestClient().post().uri("/planets").contentType(MediaType.APPLICATION_JSON).bodyValue(new Planet())
+		.exchange()
+		.expectStatus().isEqualTo(422);
+
+		webTestClient().post().uri("/planets").contentType(MediaType.APPLICATION_JSON).bodyValue(new Planet("", "", ""))
+		.exchange()
+		.expectStatus().isEqualTo(422);
+	}
+
+	@Test
+	public void createPlanet_WithExistingName_ReturnConflict() {
+		givenDuplicateName();
+
+		webTestClient().post().uri("/planets").contentType(MediaType.APPLICATION_JSON).bodyValue(PLANET)
+		.exchange()
+		.expectStatus().isEqualTo(409);
+	}
+
+	@Test
+	public void getPlanet_ByExistingId_ReturunsPlanet() {
+		givenPlanet(1L, PLANET);
+
+		webTestClient().get().uri("/planets/1")
+		.exchange()
+		.expectStatus().isOk()
+		.expectBody(Planet.class).isEqualTo(PLANET);
+	}
+
+	@Test
+	public void getPlanet_ByuBExistingId_ReturunsNotFound() {
+		givenPlanet(1L, null);
+
+		webTestClient().get().uri("/planets/1")
+		.exchange()
+		.expectStatus().isNotFound();
+	}
+
+	@Test
+	public void getPlanet_ByExistingName_ReturunsPlanet() {
+		givenPlanetNamed(PLANET.getName(), PLANET);
+
+		webTestClient().get().uri("/planets/name/" + PLANET.getName())
+		.exchange()
+		.expectStatus().isOk()
+		.expectBody(Planet.class).isEqualTo(PLANET);
+	}
+
+	@Test
+	public void getPlanet_ByuBExistingName_ReturunsNotFound() {
+		givenPlanetNamed("planetaW", null);
+
+		webTestClient().get().uri("/planets/name/planetaW")
+		.exchange()
+		.expectStatus().isNotFound();
+	}
+
+	@Test
+	public void listPlanets_ReturnsFilteredPlanets() {
+		givenList(null, null, PLANETS);
+		givenList(TATOOINE.getClimate(), TATOOINE.getTerrain(), List.of(TATOOINE));
+
+		webTestClient().get().uri("/planets")
+		.exchange()
+		.expectStatus().isOk()
+		.expectBodyList(Planet.class).hasSize(3);
+
+		webTestClient().get().uri("/planets?terrain={terrain}&climate={climate}", TATOOINE.getTerrain(), TATOOINE.getClimate())
+		.exchange()
+		.expectStatus().isOk()
+		.expectBodyList(Planet.class).value(planets -> assertThat(planets).containsExactly(TATOOINE));
+	}
+
+	@Test
+	public void listPlanets_ReturnsNoPlanets() {
+		givenList(null, null, List.of());
+
+		webTestClient().get().uri("/planets")
+		.exchange()
+		.expectStatus().isOk()
+		.expectBodyList(Planet.class).hasSize(0);
+	}
+
+	@Test
+	public void removePlanet_WithExistingId_ReturnsNoContent() {
+		givenRemoved(1L, true);
+
+		webTestClient().delete().uri("/planets/1")
+		.exchange()
+		.expectStatus().isNoContent();
+	}
+
+	@Test
+	public void removePlanet_WithUnexistingId_ReturnsNotFound() {
+		givenRemoved(1L, false);
+
+		webTestClient().delete().uri("/planets/1")
+		.exchange()
+		.expectStatus().isNotFound();
+	}
+
+}
@@ -0,0 +1,70 @@
+package com.claudio.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+	
+	private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+	
+	@Test
+	public void tryAcquire_AboveLimit_Rejects() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, MILLIS);
+		
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isTrue();
+		assertThat(limiter.tryAcquire()).isFalse();
+		
+		limiter.release(MILLIS);
+		assertThat(limiter.tryAcquire()).isTrue();
+	}
+	
+	@Test
+	public void release_GrowsWhileLatencyHoldsAndBacksOffWhenItClimbs() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 2.0, MILLIS);
+		
+		//Limite em uso e latência estável: sobe de 1 em 1
+		for (int i = 0; i < 10; i++) {
+			fill(limiter);
+			drain(limiter, 5 * MILLIS);
+		}
+		int grown = limiter.getLimit();
+		assertThat(grown).isGreaterThan(10);
+		
+		//Latência 10× a linha de base: cai 10% (no máximo uma vez por linha de base)
+		Thread.sleep(10);
+		assertThat(limiter.tryAcquire()).isTrue();
+		limiter.release(50 * MILLIS);
+		assertThat(limiter.getLimit()).isEqualTo((int) (grown * 0.9));
+	}
+	
+	@Test
+	public void release_NeverGoesBelowMinimum() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 3, 10, 2.0, MILLIS);
+		limiter.tryAcquire();
+		limiter.release(MILLIS);
+		
+		for (int i = 0; i < 5; i++) {
+			Thread.sleep(2);
+			limiter.tryAcquire();
+			limiter.release(100 * MILLIS);
+		}
+		
+		assertThat(limiter.getLimit()).isEqualTo(3);
+	}
+	
+	private void fill(AdaptiveConcurrencyLimiter limiter) {
+		while (limiter.tryAcquire()) {
+		}
+	}
+	
+	private void drain(AdaptiveConcurrencyLimiter limiter, long latency) {
+		while (limiter.getInFlight() > 0) {
+			limiter.release(latency);
+		}
+	}
+
+}
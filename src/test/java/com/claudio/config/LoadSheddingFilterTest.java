@@ -0,0 +1,75 @@
+package com.claudio.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.FilterChain;
+
+public class LoadSheddingFilterTest {
+	
+	private final FilterChain chain = mock(FilterChain.class);
+	
+	@Test
+	public void doFilter_OverTheKeyRate_RejectsWith429WithoutReachingTheController() throws Exception {
+		LoadSheddingFilter filter = new LoadSheddingFilter(new AdaptiveConcurrencyLimiter(10, 1, 10, 2.0, 0),
+				new RateLimiter(1, 2, 100, Duration.ofMinutes(1)), "X-API-Key", Set.of("client-a", "client-b"));
+		
+		assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+		assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+		MockHttpServletResponse limited = perform(filter, "client-a");
+		//Outra chave tem o próprio bucket
+		MockHttpServletResponse otherClient = perform(filter, "client-b");
+		
+		assertThat(limited.getStatus()).isEqualTo(429);
+		assertThat(limited.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(otherClient.getStatus()).isEqualTo(200);
+		verify(chain, times(3)).doFilter(any(), any());
+	}
+	
+	@Test
+	public void doFilter_WithUnknownKeys_LimitsByRemoteAddress() throws Exception {
+		LoadSheddingFilter filter = new LoadSheddingFilter(new AdaptiveConcurrencyLimiter(10, 1, 10, 2.0, 0),
+				new RateLimiter(1, 2, 100, Duration.ofMinutes(1)), "X-API-Key", Set.of("client-a"));
+		
+		//Trocar de chave inventada a cada requisição não abre bucket novo
+		assertThat(perform(filter, "made-up-1").getStatus()).isEqualTo(200);
+		assertThat(perform(filter, "made-up-2").getStatus()).isEqualTo(200);
+		assertThat(perform(filter, "made-up-3").getStatus()).isEqualTo(429);
+		assertThat(perform(filter, "client-a").getStatus()).isEqualTo(200);
+		verify(chain, times(3)).doFilter(any(), any());
+	}
+	
+	@Test
+	public void doFilter_AboveConcurrencyLimit_RejectsWith503() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2.0, 0);
+		LoadSheddingFilter filter = new LoadSheddingFilter(limiter, null, "X-API-Key", Set.of());
+		limiter.tryAcquire();
+		
+		MockHttpServletResponse response = perform(filter, "client-a");
+		
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		verify(chain, never()).doFilter(any(), any());
+	}
+	
+	private MockHttpServletResponse perform(LoadSheddingFilter filter, String apiKey) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/planets");
+		request.addHeader("X-API-Key", apiKey);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, chain);
+		return response;
+	}
+
+}
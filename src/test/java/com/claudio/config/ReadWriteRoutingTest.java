@@ -0,0 +1,162 @@
+package com.claudio.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.claudio.SwPlanetApiApplication;
+import com.claudio.common.CommandLineArgs;
+import com.claudio.domain.Planet;
+import com.claudio.domain.PlanetService;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Primário e réplica em dois H2 distintos: um planeta que só existe na réplica mostra de onde veio cada leitura.
+ */
+public class ReadWriteRoutingTest {
+	
+	private static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+	
+	@Test
+	public void readOnlyTransactions_GoToReplicaUnlessClientWroteRecently() throws Exception {
+		createReplica();
+		
+		try (ConfigurableApplicationContext context = startNode()) {
+			PlanetService planetService = context.getBean(PlanetService.class);
+			ReadWriteDataSources dataSources = context.getBean(ReadWriteDataSources.class);
+			ReadYourWritesFilter filter = new ReadYourWritesFilter(context.getBean(ReadYourWrites.class), "X-API-Key",
+					Set.of("writer", "reader"));
+			
+			assertThat(names(planetService.page(null, null, null, 10))).containsExactly("Replica");
+			
+			run(filter, "POST", "writer", () -> planetService.create(new Planet("Hoth", "frozen", "tundra")));
+			
+			//Quem escreveu lê do primário durante a janela; os outros clientes continuam na réplica
+			assertThat(names(run(filter, "GET", "writer", () -> planetService.page(null, null, null, 10)))).containsExactly("Hoth");
+			assertThat(names(run(filter, "GET", "reader", () -> planetService.page(null, null, null, 10)))).containsExactly("Replica");
+			
+			//A marcação acompanha as tarefas async da requisição (ex.: /planets/stream)
+			AsyncTaskExecutor executor = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, AsyncTaskExecutor.class);
+			assertThat(names(run(filter, "GET", "writer", () -> async(executor, () -> planetService.page(null, null, null, 10))))).containsExactly("Hoth");
+			assertThat(names(run(filter, "GET", "writer", () -> async(executor, () -> planetService.list(null, null))))).containsExactly("Hoth");
+			assertThat(names(run(filter, "GET", "reader", () -> planetService.list(null, null)))).containsExactly("Replica");
+			
+			//Os pools das réplicas também publicam as métricas do Hikari
+			assertThat(context.getBean(MeterRegistry.class).find("hikaricp.connections").tag("pool", "planets-replica-0").gauge()).isNotNull();
+			
+			//Escritas e as leituras que preenchem os caches (get/getByName) vão sempre ao primário
+			assertThat(planetService.getByName("Replica")).isEmpty();
+			//Inclusive o findById, que tem readOnly no SimpleJpaRepository: o que vai para o cache vem do primário
+			assertThat(planetService.get(1000L)).isEmpty();
+			
+			try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", ""); Statement statement = connection.createStatement()) {
+				statement.execute("shutdown");
+			}
+			dataSources.checkHealth();
+			
+			assertThat(dataSources.nextReplica()).isEmpty();
+			assertThat(names(planetService.page(null, null, null, 10))).containsExactly("Hoth");
+		}
+	}
+	
+	@Test
+	public void virtualThreads_BoundEachPoolInsteadOfTheRouter() throws Exception {
+		BeanPostProcessor bounding = VirtualThreadConfig.boundedDataSourcePostProcessor(new MockEnvironment());
+		ReadWriteDataSources dataSources = new ReadWriteDataSources(pool("bounded-primary", 10), List.of(pool("bounded-replica", 4)), 1);
+		try {
+			bounding.postProcessAfterInitialization(dataSources, "readWriteDataSources");
+			
+			assertThat(dataSources.primaryTarget()).isInstanceOfSatisfying(BoundedDataSource.class,
+					primary -> assertThat(primary.availablePermits()).isEqualTo(10));
+			assertThat(dataSources.replicaTargets()).singleElement().isInstanceOfSatisfying(BoundedDataSource.class,
+					replica -> assertThat(replica.availablePermits()).isEqualTo(4));
+			
+			DataSource router = new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(dataSources));
+			assertThat(bounding.postProcessAfterInitialization(router, "dataSource")).isSameAs(router);
+		} finally {
+			dataSources.close();
+		}
+	}
+	
+	private static HikariDataSource pool(String name, int maximumPoolSize) {
+		HikariDataSource pool = new HikariDataSource();
+		pool.setJdbcUrl("jdbc:h2:mem:" + name);
+		pool.setMaximumPoolSize(maximumPoolSize);
+		return pool;
+	}
+	
+	private static void createReplica() throws Exception {
+		Flyway.configure().dataSource(REPLICA_URL, "sa", "").locations("classpath:db/migration/h2").load().migrate();
+		try (Connection connection = DriverManager.getConnection(REPLICA_URL, "sa", ""); Statement statement = connection.createStatement()) {
+			statement.execute("insert into planets (id, name, climate, terrain, version) values (1000, 'Replica', 'arid', 'desert', 0)");
+		}
+	}
+	
+	//A requisição passa pelo filtro e a chamada ao PlanetService acontece dentro dela, como faria o controller
+	private static <T> T run(ReadYourWritesFilter filter, String method, String apiKey, Supplier<T> call) throws Exception {
+		AtomicReference<T> result = new AtomicReference<>();
+		MockHttpServletRequest request = new MockHttpServletRequest(method, "/planets");
+		request.addHeader("X-API-Key", apiKey);
+		new MockFilterChain(new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) {
+				result.set(call.get());
+			}
+		}, filter).doFilter(request, new MockHttpServletResponse());
+		return result.get();
+	}
+	
+	private static <T> T async(AsyncTaskExecutor executor, Callable<T> call) {
+		try {
+			return executor.submit(call).get();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	private static List<String> names(List<Planet> planets) {
+		return planets.stream().map(Planet::getName).toList();
+	}
+	
+	private static ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(SwPlanetApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.run(CommandLineArgs.of("spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+						//Sem IFEXISTS, a reconexão depois do shutdown criaria uma réplica vazia
+						"planets.replicas.urls=" + REPLICA_URL + ";IFEXISTS=TRUE",
+						"planets.replicas.health-check-interval=PT1H",
+						"spring.datasource.hikari.connection-timeout=500",
+						"logging.level.root=WARN"));
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.claudio.config;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+
+/**
+ * Roda as migrações do H2 (db/migration/h2) e confere os índices esperados
+ */
+@DataJpaTest
+public class SchemaIndexVerifierTest {
+	
+	@Autowired
+	private DataSource dataSource;
+	
+	@Autowired
+	private TestEntityManager testEntityManager;
+	
+	@Test
+	public void verify_AfterMigrations_Passes() {
+		assertThatCode(() -> new SchemaIndexVerifier(dataSource).afterPropertiesSet()).doesNotThrowAnyException();
+	}
+	
+	@DirtiesContext
+	@Test
+	public void verify_WithMissingIndex_FailsFast() {
+		testEntityManager.getEntityManager().createNativeQuery("drop index planet_climates_climate_idx").executeUpdate();
+		
+		assertThatThrownBy(() -> new SchemaIndexVerifier(dataSource).afterPropertiesSet())
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("planet_climates_climate_idx");
+	}
+
+}
@@ -0,0 +1,77 @@
+package com.claudio.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class SlowQueryDataSourceTest {
+	
+	private final List<SlowQueryLog.Entry> recorded = new CopyOnWriteArrayList<>();
+	
+	private SlowQueryDataSource dataSource;
+	
+	@BeforeEach
+	public void beforeEach() throws Exception {
+		JdbcDataSource h2 = new JdbcDataSource();
+		h2.setURL("jdbc:h2:mem:slow-query-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+		
+		//Limite zero: tudo é registrado; a subclasse guarda as entradas em vez de só enfileirar
+		SlowQueryLog slowQueryLog = new SlowQueryLog(Duration.ZERO, 16) {
+			@Override
+			public void record(String sql, int binds, long durationNanos, long rows) {
+				recorded.add(new SlowQueryLog.Entry(sql, binds, durationNanos / 1_000, rows, "-"));
+			}
+		};
+		dataSource = new SlowQueryDataSource(h2, slowQueryLog);
+		
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("create table planets (id bigint primary key, name varchar(255))");
+		}
+		recorded.clear();
+	}
+	
+	@Test
+	public void preparedStatements_RecordBindsAndRows() throws Exception {
+		try (Connection connection = dataSource.getConnection()) {
+			try (PreparedStatement insert = connection.prepareStatement("insert into planets (id, name) values (?, ?)")) {
+				for (long id = 1; id <= 3; id++) {
+					insert.setLong(1, id);
+					insert.setString(2, "planet-" + id);
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+			try (PreparedStatement select = connection.prepareStatement("select * from planets where id > ?")) {
+				select.setLong(1, 1);
+				try (ResultSet rows = select.executeQuery()) {
+					while (rows.next()) {
+						//lê tudo
+					}
+				}
+			}
+		}
+		
+		assertThat(recorded).extracting(SlowQueryLog.Entry::sql, SlowQueryLog.Entry::binds, SlowQueryLog.Entry::rows)
+			.containsExactly(
+				tuple("insert into planets (id, name) values (?, ?)", 2, 3L),
+				tuple("select * from planets where id > ?", 1, 2L));
+	}
+	
+	@Test
+	public void shape_ReplacesLiteralsAndCollapsesWhitespace() {
+		assertThat(SlowQueryLog.shape("select *\n  from planets where name = 'Tatooine' and id in (1, 22)"))
+			.isEqualTo("select * from planets where name = ? and id in (?, ?)");
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.claudio.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class NameTrieTest {
+	
+	private NameTrie names;
+	
+	@BeforeEach
+	public void beforeEach() {
+		names = new NameTrie();
+		names.add("Tatooine", 1L);
+		names.add("Alderaan", 2L);
+		names.add("Yavin IV", 3L);
+		names.add("Taris", 4L);
+		names.add("Takodana", 5L);
+	}
+	
+	@Test
+	public void search_ByPrefix_IgnoresCaseAndReturnsAlphabetically() {
+		assertThat(names.search("ta", 0, 10)).containsExactly(5L, 4L, 1L);
+		assertThat(names.search("YAVIN", 0, 10)).containsExactly(3L);
+		assertThat(names.search("ta", 0, 2)).containsExactly(5L, 4L);
+		assertThat(names.search("hoth", 0, 10)).isEmpty();
+	}
+	
+	@Test
+	public void search_WithEdits_ReturnsClosestFirst() {
+		assertThat(names.search("tatoo", 1, 10)).containsExactly(1L);
+		assertThat(names.search("tatoine", 0, 10)).isEmpty();
+		assertThat(names.search("tatoine", 1, 10)).containsExactly(1L);
+		assertThat(names.search("aldreaan", 2, 10)).containsExactly(2L);
+	}
+	
+	@Test
+	public void remove_PrunesNameFromSearch() {
+		names.remove("TARIS", 4L);
+		
+		assertThat(names.search("tar", 0, 10)).isEmpty();
+		assertThat(names.search("ta", 0, 10)).containsExactly(5L, 1L);
+	}
+
+}
@@ -0,0 +1,58 @@
+package com.claudio.domain;
+
+import static com.claudio.common.PlanetConstants.ALDERAAN;
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static com.claudio.common.PlanetConstants.YAVINIV;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class PlanetChangeFeedTest {
+	
+	@Test
+	public void since_ReplaysEventsStillInTheBuffer() {
+		PlanetChangeFeed feed = new PlanetChangeFeed(2);
+		long start = feed.lastSeq();
+		
+		feed.created(TATOOINE);
+		feed.created(ALDERAAN);
+		long afterAlderaan = feed.lastSeq();
+		feed.deleted(TATOOINE.getId());
+		
+		assertThat(feed.since(afterAlderaan).orElseThrow())
+			.containsExactly(new PlanetEvent(afterAlderaan + 1, PlanetChange.Type.DELETED, TATOOINE.getId(), null));
+		assertThat(feed.since(afterAlderaan - 1).orElseThrow()).extracting(PlanetEvent::id)
+			.containsExactly(ALDERAAN.getId(), TATOOINE.getId());
+		//Já saiu do buffer, ou é de outro processo
+		assertThat(feed.since(start)).isEmpty();
+		assertThat(feed.since(feed.lastSeq() + 1)).isEmpty();
+		assertThat(feed.since(feed.lastSeq())).contains(List.of());
+	}
+	
+	@Test
+	public void publish_InsideTransaction_WaitsForCommit() {
+		PlanetChangeFeed feed = new PlanetChangeFeed(10);
+		AtomicInteger notified = new AtomicInteger();
+		feed.addListener(notified::incrementAndGet);
+		long start = feed.lastSeq();
+		
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			feed.created(YAVINIV);
+			assertThat(feed.since(start)).contains(List.of());
+			
+			TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertThat(feed.since(start).orElseThrow()).extracting(PlanetEvent::planet).containsExactly(YAVINIV);
+		assertThat(notified).hasValue(1);
+	}
+
+}
@@ -0,0 +1,92 @@
+package com.claudio.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.claudio.SwPlanetApiApplication;
+import com.claudio.common.CommandLineArgs;
+
+/**
+ * Dois nós (contextos) sobre o mesmo H2: as alterações feitas num chegam aos caches e ao índice do outro pelo outbox.
+ */
+public class PlanetChangePollerTest {
+	
+	private static final Duration MAX_LAG = Duration.ofSeconds(5);
+	
+	@Test
+	public void changesOnOneNode_ReachCachesAndIndexOfTheOther() throws Exception {
+		try (ConfigurableApplicationContext first = startNode(); ConfigurableApplicationContext second = startNode()) {
+			PlanetService writer = first.getBean(PlanetService.class);
+			PlanetService reader = second.getBean(PlanetService.class);
+			
+			//Entrada negativa no cache do segundo nó
+			assertThat(reader.getByName("Hoth")).isEmpty();
+			
+			Planet hoth = writer.create(new Planet("Hoth", "frozen", "tundra"));
+			
+			awaitUntil(() -> reader.getByName("HOTH").isPresent());
+			awaitUntil(() -> reader.list("frozen", null).contains(hoth));
+			assertThat(reader.get(hoth.getId())).contains(hoth);
+			
+			writer.remove(hoth.getId());
+			
+			awaitUntil(() -> reader.get(hoth.getId()).isEmpty());
+			assertThat(reader.getByName("Hoth")).isEmpty();
+			assertThat(reader.list("frozen", null)).isEmpty();
+		}
+	}
+	
+	@Test
+	public void poll_WithGapInIds_HoldsWatermarkUntilGapTimeout() {
+		PlanetChangeRepository changeRepository = mock(PlanetChangeRepository.class);
+		PlanetChangeFeed changeFeed = new PlanetChangeFeed(10);
+		PlanetChangeLog changeLog = new PlanetChangeLog(changeRepository, changeFeed, new PlanetIndex());
+		PlanetChangePoller poller = new PlanetChangePoller(changeRepository, mock(PlanetRepository.class), new PlanetIndex(),
+				changeLog, changeFeed, new ConcurrentMapCacheManager(), 10, Duration.ZERO, Duration.ofHours(1));
+		when(changeRepository.findAfter(anyLong(), any())).thenReturn(List.of(change(1L), change(3L)));
+		
+		poller.poll();
+		assertThat(poller.watermark()).isEqualTo(1L);
+		
+		when(changeRepository.findAfter(anyLong(), any())).thenReturn(List.of(change(3L)));
+		poller.poll();
+		assertThat(poller.watermark()).isEqualTo(3L);
+	}
+	
+	private static PlanetChange change(Long id) {
+		PlanetChange change = new PlanetChange(id, "planet-" + id, PlanetChange.Type.DELETED, "other-node");
+		change.setId(id);
+		return change;
+	}
+	
+	private static ConfigurableApplicationContext startNode() {
+		return new SpringApplicationBuilder(SwPlanetApiApplication.class)
+				.web(WebApplicationType.NONE)
+				.profiles("test")
+				.run(CommandLineArgs.of("spring.datasource.url=jdbc:h2:mem:cluster;DB_CLOSE_DELAY=-1",
+						"planets.changes.poll-interval=PT0.05S",
+						"logging.level.root=WARN"));
+	}
+	
+	private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + MAX_LAG.toNanos();
+		while (!condition.getAsBoolean()) {
+			assertThat(System.nanoTime()).as("condition not met within %s", MAX_LAG).isLessThan(deadline);
+			Thread.sleep(20);
+		}
+	}
+
+}
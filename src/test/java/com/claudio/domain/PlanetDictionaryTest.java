@@ -0,0 +1,60 @@
+package com.claudio.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Sem a transação do teste: cada cenário controla o commit/rollback de quem cria o planeta
+ */
+@DataJpaTest
+@Import(PlanetDictionary.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PlanetDictionaryTest {
+	
+	@Autowired
+	private PlanetDictionary planetDictionary;
+	
+	@Autowired
+	private PlanetRepository planetRepository;
+	
+	@Autowired
+	private ClimateRepository climateRepository;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	@AfterEach
+	public void afterEach() {
+		planetRepository.deleteAll();
+	}
+	
+	@Test
+	public void link_BeforeTransactionThatRollsBack_KeepsNewTokensUsable() {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		
+		Planet mustafar = new Planet("Mustafar", "scorching", "volcanoes");
+		planetDictionary.link(mustafar);
+		transaction.executeWithoutResult(status -> {
+			planetRepository.save(mustafar);
+			status.setRollbackOnly();
+		});
+		
+		assertThat(climateRepository.findByName("scorching")).isPresent();
+		
+		Planet planet = new Planet("Sullust", "scorching", "volcanoes");
+		planetDictionary.link(planet);
+		Planet sullust = transaction.execute(status -> planetRepository.save(planet));
+		
+		assertThat(planetRepository.findById(sullust.getId())).isPresent();
+	}
+
+}
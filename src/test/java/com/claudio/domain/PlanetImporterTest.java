@@ -0,0 +1,133 @@
+package com.claudio.domain;
+
+import static com.claudio.common.PlanetConstants.INVALID_PLANET;
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetImporterTest {
+	
+	private PlanetImporter planetImporter;
+	
+	@Mock
+	private PlanetRepository planetRepository;
+	
+	@Mock
+	private PlanetIndex planetIndex;
+	
+	@Mock
+	private PlanetDictionary planetDictionary;
+	
+	@Mock
+	private PlanetChangeLog planetChangeLog;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	private final CacheManager cacheManager = new ConcurrentMapCacheManager("planets", "planetsByName");
+	
+	@BeforeEach
+	public void beforeEach() {
+		planetImporter = new PlanetImporter(planetRepository, planetIndex, planetDictionary,
+				planetChangeLog, cacheManager, transactionManager, Validation.buildDefaultValidatorFactory().getValidator(), 2);
+	}
+	
+	@Test
+	public void importPlanets_WritesInBatchesAndReportsRejectedRows() {
+		when(planetRepository.findExistingNames(anyCollection())).thenReturn(Set.of("tatooine"));
+		when(planetRepository.saveAll(anyList())).thenAnswer(invocation -> {
+			List<Planet> saved = new ArrayList<>();
+			for (Planet planet : invocation.<List<Planet>>getArgument(0)) {
+				saved.add(new Planet((long) planet.getName().length(), planet.getName(), planet.getClimate(), planet.getTerrain()));
+			}
+			return saved;
+		});
+		
+		List<Planet> planets = List.of(
+				new Planet("Tatooine", "arid", "desert"),
+				new Planet("Hoth", "frozen", "tundra"),
+				INVALID_PLANET,
+				new Planet("hoth", "frozen", "tundra"),
+				new Planet("Dagobah", "murky", "swamp"));
+		
+		ImportReport sut = planetImporter.importPlanets(planets.iterator());
+		
+		assertThat(sut.getCreated()).isEqualTo(2);
+		assertThat(sut.getConflicts()).isEqualTo(2);
+		assertThat(sut.getInvalid()).isEqualTo(1);
+		assertThat(sut.getRejected()).extracting(ImportReport.Row::row).containsExactly(0, 2, 3);
+		verify(planetRepository, times(2)).saveAll(anyList());
+	}
+	
+	@Test
+	public void importPlanets_EvictsOnlyTheCreatedPlanetsFromCaches() {
+		when(planetRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+		when(planetRepository.saveAll(anyList())).thenReturn(List.of(new Planet(4L, "Hoth", "frozen", "tundra")));
+		cacheManager.getCache("planets").put(4L, Optional.empty());
+		cacheManager.getCache("planetsByName").put("hoth", Optional.empty());
+		cacheManager.getCache("planetsByName").put("tatooine", Optional.of(TATOOINE));
+		
+		planetImporter.importPlanets(List.of(new Planet("Hoth", "frozen", "tundra")).iterator());
+		
+		assertThat(cacheManager.getCache("planets").get(4L)).isNull();
+		assertThat(cacheManager.getCache("planetsByName").get("hoth")).isNull();
+		assertThat(cacheManager.getCache("planetsByName").get("tatooine")).isNotNull();
+	}
+	
+	@Test
+	public void importPlanets_WhenBatchConflicts_RetriesRowByRowOnTheSamePlanets() {
+		when(planetRepository.findExistingNames(anyCollection())).thenReturn(Set.of());
+		//Como o Hibernate: o persist preenche id e versão mesmo que a transação seja desfeita depois,
+		//e um planeta com versão vai para merge, que devolve uma cópia
+		when(planetRepository.saveAll(anyList())).thenAnswer(invocation -> {
+			List<Planet> planets = invocation.getArgument(0);
+			if (planets.size() > 1) {
+				planets.forEach(planet -> persist(planet));
+				throw new DataIntegrityViolationException("planets_name_key");
+			}
+			Planet planet = planets.get(0);
+			if (planet.getVersion() != null) {
+				return List.of(new Planet((long) planet.getName().length(), planet.getName(), planet.getClimate(), planet.getTerrain(), 0L));
+			}
+			persist(planet);
+			return planets;
+		});
+		Planet hoth = new Planet("Hoth", "frozen", "tundra");
+		Planet dagobah = new Planet("Dagobah", "murky", "swamp");
+		
+		ImportReport sut = planetImporter.importPlanets(List.of(hoth, dagobah).iterator());
+		
+		assertThat(sut.getCreated()).isEqualTo(2);
+		assertThat(hoth.getId()).isEqualTo(4L);
+		assertThat(dagobah.getId()).isEqualTo(7L);
+		verify(planetRepository, times(3)).saveAll(anyList());
+	}
+	
+	private static void persist(Planet planet) {
+		planet.setId((long) planet.getName().length());
+		planet.setVersion(0L);
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.claudio.domain;
+
+import static com.claudio.common.PlanetConstants.ALDERAAN;
+import static com.claudio.common.PlanetConstants.PLANETS;
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static com.claudio.common.PlanetConstants.YAVINIV;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+public class PlanetIndexTest {
+	
+	private PlanetIndex planetIndex;
+	
+	@BeforeEach
+	public void beforeEach() {
+		planetIndex = new PlanetIndex();
+		planetIndex.rebuild(PLANETS);
+	}
+	
+	@Test
+	public void findPlanets_BySingleToken_MatchesInsideCommaSeparatedValues() {
+		assertThat(planetIndex.find("temperate", null)).containsExactly(ALDERAAN, YAVINIV);
+		assertThat(planetIndex.find(null, "MOUNTAINS")).containsExactly(ALDERAAN);
+	}
+	
+	@Test
+	public void findPlanets_ByManyTokens_ReturnsIntersection() {
+		assertThat(planetIndex.find("temperate, tropical", "jungle")).containsExactly(YAVINIV);
+		assertThat(planetIndex.find("arid", "jungle")).isEmpty();
+		assertThat(planetIndex.find("unknown", null)).isEmpty();
+	}
+	
+	@Test
+	public void findPlanets_WithoutFilters_ReturnsAllPlanets() {
+		assertThat(planetIndex.find(null, null)).containsExactly(TATOOINE, ALDERAAN, YAVINIV);
+	}
+	
+	@Test
+	public void addAndRemovePlanets_KeepsIndexInSync() {
+		Planet hoth = new Planet(4L, "Hoth", "frozen", "tundra, ice caves");
+		
+		planetIndex.remove(TATOOINE.getId());
+		planetIndex.add(hoth);
+		
+		assertThat(planetIndex.find("arid", null)).isEmpty();
+		assertThat(planetIndex.find("frozen", "ice caves")).containsExactly(hoth);
+		assertThat(planetIndex.find(null, null)).containsExactly(ALDERAAN, YAVINIV, hoth);
+	}
+	
+	@Test
+	public void versionTags_ChangeWithThePlanetAndTheCollection() {
+		String collectionVersion = planetIndex.collectionVersionTag();
+		
+		planetIndex.add(new Planet(4L, "Hoth", "frozen", "tundra", 2L));
+		
+		assertThat(planetIndex.versionTag(4L)).contains("4-2");
+		assertThat(planetIndex.versionTagByName("HOTH")).contains("4-2");
+		assertThat(planetIndex.versionTag(99L)).isEmpty();
+		assertThat(planetIndex.collectionVersionTag()).isEqualTo(collectionVersion);
+		
+		//A versão da coleção vem do outbox: evento local primeiro, depois o poller alcança
+		planetIndex.changed(7L);
+		assertThat(planetIndex.collectionVersionTag()).isEqualTo("0+7");
+		planetIndex.caughtUp(7L);
+		assertThat(planetIndex.collectionVersionTag()).isEqualTo("7");
+	}
+	
+	@Test
+	public void addAndChanged_InsideTransaction_ApplyOnlyAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			planetIndex.changed(8L);
+			planetIndex.add(new Planet(4L, "Hoth", "frozen", "tundra"));
+			
+			assertThat(planetIndex.versionTagByName("hoth")).isEmpty();
+			assertThat(planetIndex.collectionVersionTag()).isEqualTo("0");
+			
+			TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		
+		assertThat(planetIndex.versionTagByName("hoth")).isPresent();
+		assertThat(planetIndex.collectionVersionTag()).isEqualTo("0+8");
+	}
+	
+	@Test
+	public void stats_CountTokensAndPairsIncrementally() {
+		PlanetStats stats = planetIndex.stats();
+		
+		assertThat(stats.total()).isEqualTo(3);
+		assertThat(stats.climates()).isEqualTo(Map.of("arid", 1, "temperate", 2, "tropical", 1));
+		assertThat(stats.pairs().get("temperate")).isEqualTo(Map.of("grasslands", 1, "mountains", 1, "jungle", 1, "rainfores", 1));
+		assertThat(planetIndex.stats()).isSameAs(stats);
+		
+		planetIndex.remove(TATOOINE.getId());
+		planetIndex.add(new Planet(4L, "Hoth", "frozen", "tundra"));
+		
+		PlanetStats changed = planetIndex.stats();
+		assertThat(changed.climates()).doesNotContainKey("arid").containsEntry("frozen", 1);
+		assertThat(changed.terrains()).doesNotContainKey("desert").containsEntry("tundra", 1);
+		assertThat(changed.pairs()).doesNotContainKey("arid").containsEntry("frozen", Map.of("tundra", 1));
+		assertThat(changed).isEqualTo(PlanetStats.of(planetIndex.find(null, null)));
+	}
+	
+	@Test
+	public void stats_UnderConcurrentChanges_MatchFullRecompute() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 2000; i++) {
+			long id = 100 + i % 200;
+			boolean add = i % 3 != 0;
+			executor.execute(() -> {
+				if (add) {
+					planetIndex.add(new Planet(id, "planet-" + id, id % 2 == 0 ? "arid" : "arid, frozen", "desert"));
+				} else {
+					planetIndex.remove(id);
+				}
+				planetIndex.stats();
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+		
+		assertThat(planetIndex.stats()).isEqualTo(PlanetStats.of(planetIndex.find(null, null)));
+	}
+
+}
@@ -7,6 +7,8 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -15,6 +17,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Example;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 
 /**
@@ -32,6 +35,12 @@ public class PlanetRepositoryTest {
 	@Autowired
 	private TestEntityManager testEntityManager;
 	
+	//Códigos do import_planets.sql
+	private static final short ARID = 1;
+	private static final short TEMPERATE = 2;
+	private static final short TROPICAL = 4;
+	private static final short JUNGLE = 3;
+	
 	@AfterEach
 	public void afterEach() {
 		PLANET.setId(null);
@@ -62,8 +71,16 @@ public class PlanetRepositoryTest {
 		Planet emptyPlanet = new Planet(); //com todos os atributos nulos
 		Planet invalidPlanet = new Planet("", "", "");
 		
-		assertThatThrownBy(() -> planetRepository.save(emptyPlanet)).isInstanceOf(RuntimeException.class);
-		assertThatThrownBy(() ->planetRepository.save(invalidPlanet)).isInstanceOf(RuntimeException.class);
+		//Com SEQUENCE o insert (e a validação) só acontece no flush
+		assertThatThrownBy(() -> {
+			planetRepository.save(emptyPlanet);
+			testEntityManager.flush();
+		}).isInstanceOf(RuntimeException.class);
+		testEntityManager.clear();
+		assertThatThrownBy(() -> {
+			planetRepository.save(invalidPlanet);
+			testEntityManager.flush();
+		}).isInstanceOf(RuntimeException.class);
 	}
 
 	@Test
@@ -91,7 +108,19 @@ public class PlanetRepositoryTest {
 		
 		//act
 		
-		assertThatThrownBy(() -> planetRepository.save(planet)).isInstanceOf(RuntimeException.class);
+		//Com SEQUENCE o insert só acontece no flush
+		assertThatThrownBy(() -> {
+			planetRepository.save(planet);
+			testEntityManager.flush();
+		}).isInstanceOf(RuntimeException.class);
+	}
+	
+	@Sql(scripts = "/import_planets.sql")
+	@Test
+	public void findExistingNames_ReturnsOnlyStoredNamesInLowerCase() {
+		Set<String> sut = planetRepository.findExistingNames(List.of("tatooine", "hoth", "yavin iv"));
+		
+		assertThat(sut).containsExactlyInAnyOrder("tatooine", "yavin iv");
 	}
 	
 	@Test
@@ -144,6 +173,48 @@ public class PlanetRepositoryTest {
 		assertThat(responseWithFilters.get(0)).isEqualTo(TATOOINE);
 	}
 	
+	@Sql(scripts = "/import_planets.sql")
+	@Test
+	public void listPlanets_ByPage_ReturnsPlanetsAfterCursor() {
+		List<Planet> firstPage = planetRepository.findPage(0L, Set.of(), 0, Set.of(), 0, PageRequest.ofSize(2));
+		List<Planet> secondPage = planetRepository.findPage(firstPage.get(1).getId(), Set.of(), 0, Set.of(), 0, PageRequest.ofSize(2));
+		List<Planet> filteredPage = planetRepository.findPage(0L, Set.of(ARID), 1, Set.of(), 0, PageRequest.ofSize(2));
+		
+		assertThat(firstPage).extracting(Planet::getId).containsExactly(1L, 2L);
+		assertThat(secondPage).extracting(Planet::getId).containsExactly(3L);
+		assertThat(filteredPage).containsExactly(TATOOINE);
+	}
+	
+	@Sql(scripts = "/import_planets.sql")
+	@Test
+	public void streamPlanets_ReturnsAllPlanetsInIdOrder() {
+		try (Stream<Planet> planets = planetRepository.streamAll()) {
+			assertThat(planets.map(Planet::getId)).containsExactly(1L, 2L, 3L);
+		}
+	}
+	
+	@Sql(scripts = "/import_planets.sql")
+	@Test
+	public void getPlanets_ByIdsOrNames_ReturnsMatchesInOneQuery() {
+		List<Planet> byBoth = planetRepository.findByIdsOrNames(Set.of(1L, 99L), Set.of("alderaan", "unknown"));
+		List<Planet> byNamesOnly = planetRepository.findByIdsOrNames(Set.of(), Set.of("yavin iv"));
+		
+		assertThat(byBoth).extracting(Planet::getId).containsExactlyInAnyOrder(1L, 2L);
+		assertThat(byNamesOnly).extracting(Planet::getId).containsExactly(3L);
+	}
+	
+	@Sql(scripts = "/import_planets.sql")
+	@Test
+	public void listPlanets_ByTraitCodes_MatchesAllRequestedCodes() {
+		List<Planet> temperate = planetRepository.findByTraits(Set.of(TEMPERATE), 1, Set.of(), 0);
+		List<Planet> temperateAndTropical = planetRepository.findByTraits(Set.of(TEMPERATE, TROPICAL), 2, Set.of(), 0);
+		List<Planet> temperateInJungle = planetRepository.findByTraits(Set.of(TEMPERATE), 1, Set.of(JUNGLE), 1);
+		
+		assertThat(temperate).extracting(Planet::getId).containsExactly(2L, 3L);
+		assertThat(temperateAndTropical).extracting(Planet::getId).containsExactly(3L);
+		assertThat(temperateInJungle).extracting(Planet::getId).containsExactly(3L);
+	}
+	
 	@Test
 	public void listPlanets_ReturnsNoPlanets() {
 		Example<Planet> query = QueryBuilder.makeQuery(new Planet());
@@ -165,6 +236,33 @@ public class PlanetRepositoryTest {
 		
 	}
 	
+	@Test
+	public void removePlanet_ById_ReturnsAffectedRows() {
+		Planet planet = testEntityManager.persistFlushFind(PLANET);
+		
+		int removed = planetRepository.removeById(planet.getId());
+		int removedAgain = planetRepository.removeById(planet.getId());
+		
+		assertThat(removed).isEqualTo(1);
+		assertThat(removedAgain).isZero();
+		assertThat(testEntityManager.find(Planet.class, planet.getId())).isNull();
+	}
+	
+	@Sql(scripts = "/import_planets.sql")
+	@Test
+	public void lockExistingIds_ReturnsOnlyStoredIds() {
+		assertThat(planetRepository.lockExistingIds(List.of(3L, 1L, 99L))).containsExactly(1L, 3L);
+	}
+	
+	@Sql(scripts = "/import_planets.sql")
+	@Test
+	public void removePlanets_ByIds_RemovesInOneStatement() {
+		int removed = planetRepository.removeByIdIn(List.of(1L, 3L, 99L));
+		
+		assertThat(removed).isEqualTo(2);
+		assertThat(planetRepository.findAll(QueryBuilder.makeQuery(new Planet()))).extracting(Planet::getId).containsExactly(2L);
+	}
+	
 	@Test
 	public void removePlanet_WithUnexistingId_ThrowsException() {
 		Planet planetNotFound = testEntityManager.find(Planet.class, 99L);
@@ -0,0 +1,42 @@
+package com.claudio.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.jdbc.Sql;
+
+/**
+ * getAll contra o H2: só ids ou só nomes deixam a outra lista do "in" vazia
+ */
+@DataJpaTest
+@Import({ PlanetService.class, PlanetIndex.class, PlanetDictionary.class, PlanetChangeLog.class, PlanetChangeFeed.class })
+@Sql(scripts = "/import_planets.sql")
+public class PlanetServiceBatchGetTest {
+	
+	@Autowired
+	private PlanetService planetService;
+	
+	@Test
+	public void getAll_WithIdsOnly_ReturnsLookupsInRequestOrder() {
+		List<PlanetLookup> sut = planetService.getAll(List.of(3L, 99L, 1L), List.of());
+		
+		assertThat(sut).extracting(PlanetLookup::id).containsExactly(3L, 99L, 1L);
+		assertThat(sut).extracting(PlanetLookup::found).containsExactly(true, false, true);
+		assertThat(sut.get(0).planet().getName()).isEqualTo("Yavin IV");
+	}
+	
+	@Test
+	public void getAll_WithNamesOnly_MatchesIgnoringCase() {
+		List<PlanetLookup> sut = planetService.getAll(List.of(), List.of("YAVIN IV", "hoth", "tatooine"));
+		
+		assertThat(sut).extracting(PlanetLookup::name).containsExactly("YAVIN IV", "hoth", "tatooine");
+		assertThat(sut).extracting(PlanetLookup::found).containsExactly(true, false, true);
+		assertThat(sut.get(2).planet().getId()).isEqualTo(1L);
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.claudio.domain;
+
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Locale;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Apenas o PlanetService com o proxy de cache (Caffeine) - o repositório é mockado
+ */
+@SpringBootTest(classes = { PlanetService.class, PlanetIndex.class, PlanetServiceCacheTest.CacheConfig.class })
+@ImportAutoConfiguration(CacheAutoConfiguration.class)
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class PlanetServiceCacheTest {
+	
+	@TestConfiguration
+	@EnableCaching
+	static class CacheConfig {
+	}
+	
+	@Autowired
+	private PlanetService planetService;
+	
+	@MockBean
+	private PlanetRepository planetRepository;
+	
+	@MockBean
+	private PlanetDictionary planetDictionary;
+	
+	@MockBean
+	private PlanetChangeLog planetChangeLog;
+	
+	@MockBean
+	private PlatformTransactionManager transactionManager;
+	
+	@Test
+	public void getPlanet_CalledTwice_HitsRepositoryOnce() {
+		when(planetRepository.findById(1L)).thenReturn(Optional.of(TATOOINE));
+		
+		planetService.get(1L);
+		Optional<Planet> sut = planetService.get(1L);
+		
+		assertThat(sut).contains(TATOOINE);
+		verify(planetRepository, times(1)).findById(1L);
+	}
+	
+	@Test
+	public void getPlanet_ByNameWithDifferentCase_SharesCacheEntry() {
+		when(planetRepository.findByName("Tatooine")).thenReturn(Optional.of(TATOOINE));
+		
+		planetService.getByName("Tatooine");
+		Optional<Planet> sut = planetService.getByName("TATOOINE");
+		
+		assertThat(sut).contains(TATOOINE);
+		verify(planetRepository, times(1)).findByName("Tatooine");
+	}
+	
+	@Test
+	public void getPlanet_ByNameWithTurkishDefaultLocale_SharesCacheEntry() {
+		when(planetRepository.findByName("Tatooine")).thenReturn(Optional.of(TATOOINE));
+		Locale defaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.forLanguageTag("tr"));
+		try {
+			//"TATOOINE".toLowerCase() em turco tem o i sem ponto: a chave é a mesma do outbox (Locale.ROOT)
+			planetService.getByName("Tatooine");
+			assertThat(planetService.getByName("TATOOINE")).contains(TATOOINE);
+		} finally {
+			Locale.setDefault(defaultLocale);
+		}
+		verify(planetRepository, times(1)).findByName("Tatooine");
+	}
+	
+	@Test
+	public void createPlanet_AfterNegativeLookup_InvalidatesCache() {
+		Planet planet = new Planet("Hoth", "frozen", "tundra");
+		Planet saved = new Planet(10L, "Hoth", "frozen", "tundra");
+		when(planetRepository.findByName("Hoth")).thenReturn(Optional.empty(), Optional.of(saved));
+		when(planetRepository.save(planet)).thenReturn(saved);
+		
+		assertThat(planetService.getByName("Hoth")).isEmpty();
+		planetService.create(planet);
+		
+		assertThat(planetService.getByName("Hoth")).contains(saved);
+	}
+	
+	@Test
+	public void removePlanet_InvalidatesCache() {
+		when(planetRepository.findById(1L)).thenReturn(Optional.of(TATOOINE), Optional.empty());
+		when(planetRepository.removeById(1L)).thenReturn(1);
+		
+		planetService.get(1L);
+		planetService.remove(1L);
+		
+		assertThat(planetService.get(1L)).isEmpty();
+	}
+}
@@ -1,25 +1,36 @@
 package com.claudio.domain;
 
+import static com.claudio.common.PlanetConstants.ALDERAAN;
 import static com.claudio.common.PlanetConstants.INVALID_PLANET;
 import static com.claudio.common.PlanetConstants.PLANET;
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static com.claudio.common.PlanetConstants.YAVINIV;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Example;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.claudio.config.ReadYourWrites;
 
 //adicionar apenas o bean planetservice
 //Error creating bean with name 'planetService': Unsatisfied dependency 
@@ -37,6 +48,18 @@ public class PlanetServiceTest {
 	@Mock
 	private PlanetRepository planetRepository;
 	
+	@Mock
+	private PlanetIndex planetIndex;
+	
+	@Mock
+	private PlanetDictionary planetDictionary;
+	
+	@Mock
+	private PlanetChangeLog planetChangeLog;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
 	//operacao_estado_retorno
 	@Test
 	public void createPlanet_WithValidData_ReturnsPlanet() {
@@ -53,6 +76,19 @@ public class PlanetServiceTest {
 		
 	}
 	
+	@Test
+	public void createPlanet_LinksDictionaryTokensBeforeTheTransaction() {
+		when(planetRepository.save(PLANET)).thenReturn(PLANET);
+		
+		planetService.create(PLANET);
+		
+		InOrder inOrder = inOrder(planetDictionary, transactionManager, planetRepository);
+		inOrder.verify(planetDictionary).link(PLANET);
+		inOrder.verify(transactionManager).getTransaction(any());
+		inOrder.verify(planetRepository).save(PLANET);
+		inOrder.verify(transactionManager).commit(any());
+	}
+	
 	@Test
 	public void createPlanet_WithInvalidData_ThrowsException() {
 		when(planetRepository.save(INVALID_PLANET)).thenThrow(RuntimeException.class);
@@ -100,6 +136,21 @@ public class PlanetServiceTest {
 		assertThat(sut).isEmpty();
 	}
 	
+	@Test
+	public void getPlanets_ByIdsAndNames_KeepsRequestOrderWithNotFoundMarkers() {
+		when(planetRepository.findByIdsOrNames(Set.of(3L, 1L, 99L), Set.of("alderaan", "hoth")))
+			.thenReturn(List.of(TATOOINE, ALDERAAN, YAVINIV));
+		
+		List<PlanetLookup> sut = planetService.getAll(List.of(3L, 1L, 99L), List.of("ALDERAAN", "Hoth"));
+		
+		assertThat(sut).containsExactly(
+				new PlanetLookup(3L, null, true, YAVINIV),
+				new PlanetLookup(1L, null, true, TATOOINE),
+				new PlanetLookup(99L, null, false, null),
+				new PlanetLookup(null, "ALDERAAN", true, ALDERAAN),
+				new PlanetLookup(null, "Hoth", false, null));
+	}
+	
 	@SuppressWarnings("serial")
 	@Test
 	public void listPlanets_ReturnsAllPlanets() {
@@ -108,9 +159,9 @@ public class PlanetServiceTest {
 			  add(PLANET);
 			}
 		};
-		Example<Planet> query = QueryBuilder.makeQuery(new Planet(null, PLANET.getClimate(), PLANET.getTerrain()));
-		
-		when(planetRepository.findAll(query)).thenReturn(planets);
+		when(planetDictionary.climateIds(PLANET.getClimate())).thenReturn(Optional.of(Set.of((short) 1)));
+		when(planetDictionary.terrainIds(PLANET.getTerrain())).thenReturn(Optional.of(Set.of((short) 2)));
+		when(planetRepository.findByTraits(Set.of((short) 1), 1, Set.of((short) 2), 1)).thenReturn(planets);
 		
 		List<Planet> sut = planetService.list(PLANET.getClimate(), PLANET.getTerrain());
 		
@@ -119,9 +170,22 @@ public class PlanetServiceTest {
 		assertThat(sut.get(0)).isEqualTo(PLANET);
 	}
 	
+	@Test
+	public void listPlanets_WithLoadedIndex_ReturnsPlanetsFromIndex() {
+		when(planetIndex.isLoaded()).thenReturn(true);
+		when(planetIndex.find(PLANET.getClimate(), PLANET.getTerrain())).thenReturn(List.of(PLANET));
+		
+		List<Planet> sut = planetService.list(PLANET.getClimate(), PLANET.getTerrain());
+		
+		assertThat(sut).containsExactly(PLANET);
+		verify(planetRepository, never()).findAll(any(Example.class));
+	}
+	
 	@Test
 	public void listPlanets_ReturnsNoPlanets() {
-		when(planetRepository.findAll(any())).thenReturn(Collections.emptyList());
+		when(planetDictionary.climateIds(PLANET.getClimate())).thenReturn(Optional.of(Set.of((short) 1)));
+		when(planetDictionary.terrainIds(PLANET.getTerrain())).thenReturn(Optional.of(Set.of((short) 2)));
+		when(planetRepository.findByTraits(any(), anyLong(), any(), anyLong())).thenReturn(Collections.emptyList());
 		
 		List<Planet> sut = planetService.list(PLANET.getClimate(), PLANET.getTerrain());
 		
@@ -129,17 +193,61 @@ public class PlanetServiceTest {
 	}
 	
 	@Test
-	public void removePlanet_WithExistingId_doesNotThrowAnyException() {
-		//Neste caso basicamente é afirmar que nenhuma exceção foi lançada
-		assertThatCode(() -> planetService.remove(1L)).doesNotThrowAnyException();
+	public void listPlanets_WithUnknownToken_ReturnsNoPlanetsWithoutQuery() {
+		when(planetDictionary.climateIds("unknown")).thenReturn(Optional.empty());
+		
+		List<Planet> sut = planetService.list("unknown", null);
+		
+		assertThat(sut).isEmpty();
+		verify(planetRepository, never()).findByTraits(any(), anyLong(), any(), anyLong());
 	}
 	
 	@Test
-	public void removePlanet_WithUnexistingId_ThrowAnyException() {
-		// Código usado para métodos VOID
-		doThrow(new RuntimeException()).when(planetRepository).deleteById(99L);
+	public void listVersionTag_WithReplicas_OnlyWhenTheListComesFromTheIndex() {
+		planetService.setReadYourWrites(new ReadYourWrites(Duration.ofSeconds(5), 10));
+		when(planetIndex.isLoaded()).thenReturn(true);
+		when(planetIndex.collectionVersionTag()).thenReturn("7");
+		
+		assertThat(planetService.listVersionTag("arid", null, false)).contains("7");
+		//Lista sem filtro e páginas vão à réplica, que pode estar atrás da versão local
+		assertThat(planetService.listVersionTag(null, null, false)).isEmpty();
+		assertThat(planetService.listVersionTag("arid", null, true)).isEmpty();
+	}
+	
+	@Test
+	public void removePlanet_WithExistingId_ReturnsTrue() {
+		when(planetRepository.removeById(1L)).thenReturn(1);
 		
-		assertThatThrownBy(() -> planetService.remove(99L)).isInstanceOf(RuntimeException.class);
+		assertThat(planetService.remove(1L)).isTrue();
+		verify(planetIndex).remove(1L);
+	}
+	
+	@Test
+	public void removePlanet_WithUnexistingId_ReturnsFalse() {
+		when(planetRepository.removeById(99L)).thenReturn(0);
+		
+		assertThat(planetService.remove(99L)).isFalse();
+		verify(planetRepository, never()).findById(99L);
 	}	
+	
+	@Test
+	public void removePlanets_ByIds_ReturnsRemovedCount() {
+		when(planetRepository.lockExistingIds(List.of(1L, 99L))).thenReturn(List.of(1L));
+		when(planetRepository.removeByIdIn(List.of(1L))).thenReturn(1);
+		
+		assertThat(planetService.removeAll(List.of(1L, 99L))).isEqualTo(1);
+		//O id que não existia não vira evento de remoção
+		verify(planetChangeLog).deleted(List.of(1L));
+		verify(planetIndex, never()).remove(99L);
+	}
+	
+	@Test
+	public void removePlanets_WithUnexistingIds_LogsNothing() {
+		when(planetRepository.lockExistingIds(List.of(98L, 99L))).thenReturn(List.of());
+		
+		assertThat(planetService.removeAll(List.of(98L, 99L))).isZero();
+		verify(planetRepository, never()).removeByIdIn(any());
+		verify(planetChangeLog, never()).deleted(any());
+	}
 
 }
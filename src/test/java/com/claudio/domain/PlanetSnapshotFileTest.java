@@ -0,0 +1,99 @@
+package com.claudio.domain;
+
+import static com.claudio.common.PlanetConstants.PLANETS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetSnapshotFileTest {
+	
+	@TempDir
+	private Path directory;
+	
+	@Mock
+	private PlanetRepository planetRepository;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	@Mock
+	private ObjectProvider<PlanetSnapshotStore> snapshotStore;
+	
+	private PlanetIndex planetIndex;
+	
+	private PlanetSnapshotFile snapshotFile;
+	
+	@BeforeEach
+	public void beforeEach() {
+		planetIndex = new PlanetIndex();
+		snapshotFile = new PlanetSnapshotFile(directory.resolve("planets.snapshot"), planetRepository, planetIndex,
+				transactionManager, new SyncTaskExecutor(), snapshotStore);
+	}
+	
+	@Test
+	public void writeAndRead_RoundTripsThroughMappedFile() {
+		snapshotFile.write(PlanetSnapshot.build(PLANETS, 7L));
+		
+		PlanetSnapshot mapped = snapshotFile.read().orElseThrow();
+		
+		assertThat(mapped.getCreatedAt()).isEqualTo(7L);
+		assertThat(mapped.list(null, null)).extracting(Planet::getName).containsExactly("Tatooine", "Alderaan", "Yaviniv");
+	}
+	
+	@Test
+	public void read_WithMissingOrCorruptedFile_ReturnsEmpty() throws Exception {
+		assertThat(snapshotFile.read()).isEmpty();
+		
+		Files.write(directory.resolve("planets.snapshot"), new byte[] { 1, 2, 3 });
+		
+		assertThat(snapshotFile.read()).isEmpty();
+	}
+	
+	@Test
+	public void warmStart_WithSnapshotFile_LoadsIndexAndCatchesUpOnlyChangedRows() {
+		snapshotFile.write(PlanetSnapshot.build(PLANETS, 7L));
+		Planet alderaanRenamed = new Planet(2L, "Alderaan Prime", "temperate", "grasslands, mountains", 1L);
+		Planet hoth = new Planet(4L, "Hoth", "frozen", "tundra", 0L);
+		//Tatooine removido, Alderaan alterado, Yaviniv igual, Hoth novo
+		when(planetRepository.streamVersions()).thenReturn(Stream.of(
+				new PlanetVersion(2L, 1L), new PlanetVersion(3L, 0L), new PlanetVersion(4L, 0L)));
+		when(planetRepository.findAllById(List.of(2L, 4L))).thenReturn(List.of(alderaanRenamed, hoth));
+		
+		snapshotFile.warmStart();
+		
+		assertThat(planetIndex.isLoaded()).isTrue();
+		assertThat(planetIndex.find(null, null)).extracting(Planet::getName).containsExactly("Alderaan Prime", "Yaviniv", "Hoth");
+		assertThat(snapshotFile.read().orElseThrow().list(null, null)).extracting(Planet::getId).containsExactly(2L, 3L, 4L);
+		verify(planetRepository, never()).findAll();
+	}
+	
+	@Test
+	public void warmStart_WithoutSnapshotFile_LoadsFromDatabaseAndExports() {
+		when(planetRepository.findAll()).thenReturn(PLANETS);
+		
+		snapshotFile.warmStart();
+		
+		assertThat(planetIndex.find(null, null)).hasSize(3);
+		assertThat(snapshotFile.read()).isPresent();
+		verify(planetRepository, never()).findAllById(anyIterable());
+	}
+
+}
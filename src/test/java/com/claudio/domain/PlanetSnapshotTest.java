@@ -0,0 +1,83 @@
+package com.claudio.domain;
+
+import static com.claudio.common.PlanetConstants.PLANETS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PlanetSnapshotTest {
+	
+	private PlanetSnapshot snapshot;
+	
+	@BeforeEach
+	public void beforeEach() {
+		snapshot = PlanetSnapshot.build(PLANETS, 42L);
+	}
+	
+	@Test
+	public void getPlanet_ByExistingId_DecodesRecord() {
+		assertThat(snapshot.size()).isEqualTo(3);
+		assertThat(snapshot.get(2L)).get()
+			.extracting(Planet::getId, Planet::getName, Planet::getClimate, Planet::getTerrain, Planet::getVersion)
+			.containsExactly(2L, "Alderaan", "temperate", "grasslands, mountains", 0L);
+		assertThat(snapshot.get(99L)).isEmpty();
+	}
+	
+	@Test
+	public void getPlanet_ByName_IgnoresCase() {
+		assertThat(snapshot.getByName("YAVINIV")).get().extracting(Planet::getId).isEqualTo(3L);
+		assertThat(snapshot.getByName("Hoth")).isEmpty();
+	}
+	
+	@Test
+	public void listPlanets_ByTokens_MatchesLikeTheIndex() {
+		assertThat(snapshot.list("temperate", null)).extracting(Planet::getId).containsExactly(2L, 3L);
+		assertThat(snapshot.list("temperate, tropical", "jungle")).extracting(Planet::getId).containsExactly(3L);
+		assertThat(snapshot.list(null, null)).extracting(Planet::getId).containsExactly(1L, 2L, 3L);
+		assertThat(snapshot.list("unknown", null)).isEmpty();
+	}
+	
+	@Test
+	public void pagePlanets_AfterId_ReturnsNextIds() {
+		assertThat(snapshot.page(null, null, 0L, 2)).extracting(Planet::getId).containsExactly(1L, 2L);
+		assertThat(snapshot.page(null, null, 2L, 2)).extracting(Planet::getId).containsExactly(3L);
+		assertThat(snapshot.page("temperate", null, 2L, 10)).extracting(Planet::getId).containsExactly(3L);
+	}
+	
+	@Test
+	public void searchPlanets_ByPrefixWithTypos_MatchesLikeTheIndex() {
+		assertThat(snapshot.search("ald", 0, 10)).extracting(Planet::getId).containsExactly(2L);
+		assertThat(snapshot.search("Tatoine", 1, 10)).extracting(Planet::getId).containsExactly(1L);
+		assertThat(snapshot.search("hoth", 1, 10)).isEmpty();
+	}
+	
+	@Test
+	public void wrapSnapshot_FromContent_ReadsSamePlanets() {
+		ByteBuffer copy = ByteBuffer.allocate(snapshot.content().remaining()).put(snapshot.content()).flip();
+		
+		PlanetSnapshot wrapped = PlanetSnapshot.wrap(copy);
+		
+		assertThat(wrapped.getCreatedAt()).isEqualTo(42L);
+		assertThat(wrapped.versionTag(1L)).contains("1-0");
+	}
+	
+	@Test
+	public void wrapSnapshot_WithInvalidHeader_ThrowsException() {
+		assertThatThrownBy(() -> PlanetSnapshot.wrap(ByteBuffer.allocate(64))).isInstanceOf(IllegalArgumentException.class);
+	}
+	
+	@Test
+	public void buildSnapshot_WithoutPlanets_IsEmpty() {
+		PlanetSnapshot empty = PlanetSnapshot.build(List.of(), 0L);
+		
+		assertThat(empty.size()).isZero();
+		assertThat(empty.get(1L)).isEmpty();
+		assertThat(empty.getByName("Tatooine")).isEmpty();
+	}
+
+}
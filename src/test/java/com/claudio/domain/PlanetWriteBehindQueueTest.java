@@ -0,0 +1,104 @@
+package com.claudio.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Iterator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import jakarta.validation.Validation;
+
+@ExtendWith(MockitoExtension.class)
+public class PlanetWriteBehindQueueTest {
+	
+	@Mock
+	private PlanetRepository planetRepository;
+	
+	@Mock
+	private PlanetIndex planetIndex;
+	
+	@Mock
+	private PlanetDictionary planetDictionary;
+	
+	@Mock
+	private PlanetChangeLog planetChangeLog;
+	
+	@Mock
+	private PlatformTransactionManager transactionManager;
+	
+	private final CacheManager cacheManager = new ConcurrentMapCacheManager("planets", "planetsByName");
+	
+	@Mock
+	private PlanetImporter failingImporter;
+	
+	private PlanetWriteBehindQueue queue;
+	
+	//A thread de escrita não é iniciada (start()): o teste drena a fila explicitamente
+	@BeforeEach
+	public void beforeEach() {
+		PlanetImporter planetImporter = new PlanetImporter(planetRepository, planetIndex, planetDictionary,
+				planetChangeLog, cacheManager, transactionManager, Validation.buildDefaultValidatorFactory().getValidator(), 10);
+		queue = new PlanetWriteBehindQueue(planetImporter, 3, 10, Duration.ofMillis(5), Duration.ofMinutes(1));
+	}
+	
+	@Test
+	public void enqueue_WhenFull_ThrowsQueueFull() {
+		queue.enqueue(new Planet("Tatooine", "arid", "desert"));
+		queue.enqueue(new Planet("Alderaan", "temperate", "mountains"));
+		queue.enqueue(new Planet("Hoth", "frozen", "tundra"));
+		
+		assertThatThrownBy(() -> queue.enqueue(new Planet("Endor", "temperate", "forests")))
+			.isInstanceOf(IngestQueueFullException.class);
+	}
+	
+	@Test
+	public void drain_WritesOneBatchAndReportsEachTicket() {
+		when(planetRepository.saveAll(any())).thenAnswer(invocation -> {
+			Iterable<Planet> planets = invocation.getArgument(0);
+			long id = 1;
+			for (Planet planet : planets) {
+				planet.setId(id++);
+			}
+			return planets;
+		});
+		IngestTicket tatooine = queue.enqueue(new Planet("Tatooine", "arid", "desert"));
+		IngestTicket duplicated = queue.enqueue(new Planet("TATOOINE", "arid", "desert"));
+		IngestTicket hoth = queue.enqueue(new Planet("Hoth", "frozen", "tundra"));
+		assertThat(queue.status(tatooine.id())).get().extracting(IngestTicket::status).isEqualTo(IngestTicket.Status.PENDING);
+		
+		assertThat(queue.drain()).isEqualTo(3);
+		
+		assertThat(queue.status(tatooine.id())).get()
+			.extracting(IngestTicket::status, IngestTicket::planetId).containsExactly(IngestTicket.Status.CREATED, 1L);
+		assertThat(queue.status(duplicated.id())).get()
+			.extracting(IngestTicket::status).isEqualTo(IngestTicket.Status.CONFLICT);
+		assertThat(queue.status(hoth.id())).get()
+			.extracting(IngestTicket::status, IngestTicket::planetId).containsExactly(IngestTicket.Status.CREATED, 2L);
+		assertThat(queue.drain()).isZero();
+	}
+	
+	@Test
+	public void drain_WhenImportFails_MarksBatchFailedAndFreesCapacity() {
+		when(failingImporter.importPlanets(any(Iterator.class))).thenThrow(new DataAccessResourceFailureException("down"));
+		queue = new PlanetWriteBehindQueue(failingImporter, 1, 10, Duration.ofMillis(5), Duration.ofMinutes(1));
+		IngestTicket ticket = queue.enqueue(new Planet("Tatooine", "arid", "desert"));
+		
+		queue.drain();
+		
+		assertThat(queue.status(ticket.id())).get().extracting(IngestTicket::status).isEqualTo(IngestTicket.Status.FAILED);
+		assertThat(queue.enqueue(new Planet("Hoth", "frozen", "tundra")).status()).isEqualTo(IngestTicket.Status.PENDING);
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.claudio.domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class SingleFlightTest {
+	
+	private final SingleFlight<String, String> flights = new SingleFlight<>("test");
+	
+	@Test
+	public void execute_ConcurrentCallsWithSameKey_RunLoaderOnce() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		
+		try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+			CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> flights.execute("tatooine", () -> {
+				loads.incrementAndGet();
+				loading.countDown();
+				await(release);
+				return "Tatooine";
+			}), executor);
+			loading.await(5, TimeUnit.SECONDS);
+			
+			CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> flights.execute("tatooine", () -> {
+				loads.incrementAndGet();
+				return "other";
+			}), executor);
+			while (flights.coalesced() == 0) {
+				Thread.onSpinWait();
+			}
+			release.countDown();
+			
+			assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("Tatooine");
+			assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("Tatooine");
+		}
+		assertThat(loads).hasValue(1);
+		assertThat(flights.coalesced()).isEqualTo(1);
+	}
+	
+	@Test
+	public void execute_AfterCallCompletes_LoadsAgain() {
+		assertThat(flights.execute("hoth", () -> "first")).isEqualTo("first");
+		assertThat(flights.execute("hoth", () -> "second")).isEqualTo("second");
+		assertThat(flights.coalesced()).isZero();
+	}
+	
+	@Test
+	public void execute_WhenLoaderFails_PropagatesAndForgetsKey() {
+		assertThatThrownBy(() -> flights.execute("endor", () -> {
+			throw new IllegalStateException("down");
+		})).isInstanceOf(IllegalStateException.class);
+		
+		assertThat(flights.execute("endor", () -> "Endor")).isEqualTo("Endor");
+	}
+	
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.claudio.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.claudio.domain.PlanetSnapshotFile;
+
+/**
+ * Tempo até a primeira requisição servida (subida do contexto + primeira listagem filtrada pelo índice),
+ * carregando o índice pelo banco e pelo arquivo de snapshot mapeado em memória.
+ * Rodar com: mvn test -Pload -Dtest=ColdStartLoadTest
+ */
+@Tag("load")
+public class ColdStartLoadTest {
+	
+	private static final int PLANETS = 100_000;
+	
+	//O banco sobrevive entre os contextos (DB_CLOSE_DELAY=-1; o schema vem das migrações), como um Postgres de verdade
+	private static final String DATABASE = "spring.datasource.url=jdbc:h2:mem:coldstart;DB_CLOSE_DELAY=-1";
+	
+	@TempDir
+	private Path directory;
+	
+	@Test
+	public void compareTimeToFirstRequest_DatabaseVersusSnapshotFile() throws Exception {
+		Path file = directory.resolve("planets.snapshot");
+		HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+		
+		try (ConfigurableApplicationContext context = LoadGenerator.start(DATABASE, "planets.snapshot.file=" + file)) {
+			LoadGenerator.seed(client, LoadGenerator.baseUri(context), PLANETS);
+			context.getBean(PlanetSnapshotFile.class).export();
+		}
+		assertThat(file).exists();
+		
+		Duration fromDatabase = timeToFirstRequest(client, DATABASE);
+		Duration fromSnapshot = timeToFirstRequest(client, DATABASE, "planets.snapshot.file=" + file);
+		
+		System.out.println("snapshot file size: " + Files.size(file) + " bytes");
+		System.out.println("time to first request, from database: " + fromDatabase.toMillis() + "ms");
+		System.out.println("time to first request, from snapshot: " + fromSnapshot.toMillis() + "ms");
+	}
+	
+	private Duration timeToFirstRequest(HttpClient client, String... properties) throws Exception {
+		long start = System.nanoTime();
+		try (ConfigurableApplicationContext context = LoadGenerator.start(properties)) {
+			URI baseUri = LoadGenerator.baseUri(context);
+			HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/planets?climate=temperate&terrain=terrain-3")).GET().build();
+			while (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+				Thread.sleep(1);
+			}
+			return Duration.ofNanos(System.nanoTime() - start);
+		}
+	}
+
+}
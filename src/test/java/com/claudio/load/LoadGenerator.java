@@ -0,0 +1,155 @@
+package com.claudio.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.claudio.SwPlanetApiApplication;
+import com.claudio.common.CommandLineArgs;
+import com.claudio.reactive.ReactivePlanetApiApplication;
+
+/**
+ * Gerador de carga simples para os testes de carga: N clientes em loop fechado durante um tempo fixo.
+ */
+public class LoadGenerator {
+	
+	public record Result(long requests, long errors, double throughput, long p50Micros, long p99Micros) {
+		@Override
+		public String toString() {
+			return String.format("requests=%d errors=%d throughput=%.0f req/s p50=%dus p99=%dus",
+					requests, errors, throughput, p50Micros, p99Micros);
+		}
+	}
+	
+	public static ConfigurableApplicationContext start(String... properties) {
+		//Sem os limites de carga (um único cliente gera tudo): quem quer medi-los liga explicitamente
+		return new SpringApplicationBuilder(SwPlanetApiApplication.class)
+				.profiles("test")
+				.run(args(new String[] { "server.port=0", "planets.limits.enabled=false" }, properties));
+	}
+	
+	/**
+	 * Sobe a variante WebFlux + R2DBC com um H2 em memória (modo PostgreSQL, por causa do nextval).
+	 */
+	public static ConfigurableApplicationContext startReactive(String database, String... properties) {
+		return new SpringApplicationBuilder(ReactivePlanetApiApplication.class)
+				.profiles(ReactivePlanetApiApplication.PROFILE)
+				.run(args(new String[] { "server.port=0",
+						"spring.r2dbc.url=r2dbc:h2:mem:///" + database + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+						"spring.r2dbc.username=sa",
+						"spring.r2dbc.password=",
+						"spring.sql.init.mode=always",
+						"spring.sql.init.schema-locations=classpath:reactive-schema.sql" }, properties));
+	}
+	
+	//Os padrões daqui primeiro: as propriedades de quem chama prevalecem
+	private static String[] args(String[] defaults, String[] properties) {
+		String[] all = Arrays.copyOf(defaults, defaults.length + properties.length);
+		System.arraycopy(properties, 0, all, defaults.length, properties.length);
+		return CommandLineArgs.of(all);
+	}
+	
+	public static URI baseUri(ConfigurableApplicationContext context) {
+		return URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+	}
+	
+	public static void seed(HttpClient client, URI baseUri, int planets) throws Exception {
+		StringBuilder ndjson = new StringBuilder();
+		for (int i = 0; i < planets; i++) {
+			ndjson.append(String.format("{\"name\":\"planet-%d\",\"climate\":\"climate-%d, temperate\",\"terrain\":\"terrain-%d\"}%n",
+					i, i % 7, i % 11));
+		}
+		HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/planets/bulk"))
+				.header("Content-Type", "application/x-ndjson")
+				.POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+				.build();
+		client.send(request, HttpResponse.BodyHandlers.discarding());
+	}
+	
+	//Para a pilha reativa, que não tem /planets/bulk
+	public static void seedOneByOne(HttpClient client, URI baseUri, int planets) throws Exception {
+		for (int i = 0; i < planets; i++) {
+			HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/planets"))
+					.header("Content-Type", "application/json")
+					.POST(HttpRequest.BodyPublishers.ofString(String.format(
+							"{\"name\":\"planet-%d\",\"climate\":\"climate-%d, temperate\",\"terrain\":\"terrain-%d\"}",
+							i, i % 7, i % 11)))
+					.build();
+			client.send(request, HttpResponse.BodyHandlers.discarding());
+		}
+	}
+	
+	/**
+	 * Cada cliente virtual dispara a próxima requisição assim que recebe a resposta anterior.
+	 * Respostas fora de 2xx/3xx contam como erro e não entram nos percentis.
+	 */
+	public static Result run(HttpClient client, int concurrency, Duration duration, IntFunction<HttpRequest> requests)
+			throws Exception {
+		long deadline = System.nanoTime() + duration.toNanos();
+		
+		try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+			List<Future<long[]>> workers = new ArrayList<>();
+			for (int c = 0; c < concurrency; c++) {
+				workers.add(clients.submit(() -> {
+					long[] latencies = new long[1024];
+					int count = 0;
+					long errors = 0;
+					for (int i = 0; System.nanoTime() < deadline; i++) {
+						long start = System.nanoTime();
+						try {
+							int status = client.send(requests.apply(i), HttpResponse.BodyHandlers.discarding()).statusCode();
+							if (status >= 400) {
+								errors++;
+								continue;
+							}
+						} catch (Exception ex) {
+							errors++;
+							continue;
+						}
+						if (count == latencies.length) {
+							latencies = Arrays.copyOf(latencies, count * 2);
+						}
+						latencies[count++] = (System.nanoTime() - start) / 1_000;
+					}
+					long[] result = Arrays.copyOf(latencies, count + 1);
+					result[count] = errors;
+					return result;
+				}));
+			}
+			
+			long errors = 0;
+			long[] all = new long[0];
+			for (Future<long[]> worker : workers) {
+				long[] result = worker.get();
+				errors += result[result.length - 1];
+				int offset = all.length;
+				all = Arrays.copyOf(all, offset + result.length - 1);
+				System.arraycopy(result, 0, all, offset, result.length - 1);
+			}
+			Arrays.sort(all);
+			
+			return new Result(all.length, errors, all.length / (duration.toMillis() / 1000.0),
+					percentile(all, 0.50), percentile(all, 0.99));
+		}
+	}
+	
+	private static long percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+	}
+
+}
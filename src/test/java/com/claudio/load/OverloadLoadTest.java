@@ -0,0 +1,62 @@
+package com.claudio.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 5× a concorrência que o serviço aguenta: sem os limites todas as requisições enfileiram e o p99 explode;
+ * com o limite adaptativo o excesso recebe 503 na hora e o p99 das atendidas fica perto do p99 sem sobrecarga.
+ * Rodar com: mvn test -Pload -Dtest=OverloadLoadTest
+ */
+@Tag("load")
+public class OverloadLoadTest {
+	
+	private static final int CAPACITY = 20;
+	private static final int OVERLOAD = 5 * CAPACITY;
+	private static final Duration DURATION = Duration.ofSeconds(20);
+	
+	@Test
+	public void p99StaysBounded_UnderFiveTimesOverload() throws Exception {
+		LoadGenerator.Result atCapacity = measure("capacity", CAPACITY, "planets.limits.enabled=false");
+		LoadGenerator.Result unprotected = measure("unprotected", OVERLOAD, "planets.limits.enabled=false");
+		LoadGenerator.Result shed = measure("shed", OVERLOAD, "planets.limits.enabled=true",
+				"planets.rate-limit.requests-per-second=0", "planets.limits.initial=" + CAPACITY);
+		
+		System.out.println("at capacity (" + CAPACITY + " clients):           " + atCapacity);
+		System.out.println("5x overload, no limits (" + OVERLOAD + " clients): " + unprotected);
+		System.out.println("5x overload, shedding (" + OVERLOAD + " clients):  " + shed);
+		
+		assertThat(shed.errors()).as("excess load is rejected").isPositive();
+		assertThat(shed.p99Micros()).isLessThan(unprotected.p99Micros());
+		assertThat(shed.p99Micros()).isLessThanOrEqualTo(3 * atCapacity.p99Micros());
+	}
+	
+	private LoadGenerator.Result measure(String database, int clients, String... limits) throws Exception {
+		//Tomcat e Hikari pequenos: a capacidade do serviço fica bem definida
+		String[] properties = new String[limits.length + 3];
+		properties[0] = "spring.datasource.url=jdbc:h2:mem:overload-" + database + ";DB_CLOSE_DELAY=-1";
+		properties[1] = "server.tomcat.threads.max=200";
+		properties[2] = "spring.datasource.hikari.maximum-pool-size=" + CAPACITY / 2;
+		System.arraycopy(limits, 0, properties, 3, limits.length);
+		
+		try (ConfigurableApplicationContext context = LoadGenerator.start(properties)) {
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+			URI baseUri = LoadGenerator.baseUri(context);
+			LoadGenerator.seed(client, baseUri, 5_000);
+			
+			//Páginas vão sempre ao banco: a fila se forma no pool de conexões
+			return LoadGenerator.run(client, clients, DURATION, i -> HttpRequest
+					.newBuilder(baseUri.resolve("/planets?limit=50&after=" + (i * 50 % 5_000)))
+					.GET().build());
+		}
+	}
+
+}
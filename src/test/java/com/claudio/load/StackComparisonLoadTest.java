@@ -0,0 +1,144 @@
+package com.claudio.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Servlet (JPA) x WebFlux (R2DBC) com muitas conexões simultâneas: throughput, p99,
+ * pico de threads e heap extra por conexão durante a carga.
+ * Cada pilha sobe num JVM próprio (Server), onde heap e threads são medidos sem o cliente de carga no processo.
+ * Rodar com: mvn test -Pload -Dtest=StackComparisonLoadTest
+ */
+@Tag("load")
+public class StackComparisonLoadTest {
+	
+	private static final int CONNECTIONS = 2_000;
+	private static final int PLANETS = 100;
+	private static final Duration DURATION = Duration.ofSeconds(20);
+	
+	//Prefixo das linhas do protocolo com o Server (stdout dele; o log vai para o stderr, em target/stack-*.log)
+	private static final String OUTPUT = "stack.";
+	
+	@Test
+	public void compareServletAndReactiveStacks_UnderHighConcurrency() throws Exception {
+		String servlet = measure("servlet");
+		String reactive = measure("reactive");
+		
+		System.out.println("servlet:  " + servlet);
+		System.out.println("reactive: " + reactive);
+		assertThat(servlet).isNotEmpty();
+		assertThat(reactive).isNotEmpty();
+	}
+	
+	private String measure(String stack) throws Exception {
+		Process server = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+				//Sem o restart do devtools, que rodaria o main de novo noutra thread e classloader
+				"-Dspring.devtools.restart.enabled=false",
+				"-cp", System.getProperty("java.class.path"), Server.class.getName(), stack)
+				.redirectError(Path.of("target", "stack-" + stack + ".log").toFile())
+				.start();
+		try (BufferedReader output = new BufferedReader(new InputStreamReader(server.getInputStream()));
+				PrintWriter commands = new PrintWriter(server.getOutputStream(), true)) {
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+			URI baseUri = URI.create("http://localhost:" + await(output, "port="));
+			if ("reactive".equals(stack)) {
+				LoadGenerator.seedOneByOne(client, baseUri, PLANETS);
+			} else {
+				LoadGenerator.seed(client, baseUri, PLANETS);
+			}
+			
+			commands.println("start");
+			await(output, "started");
+			
+			//A lista sem filtro vai ao banco nas duas pilhas (sem cache nem índice no caminho), mas na servlet os misses
+			//simultâneos são agrupados pelo SingleFlight (uma consulta atende a todos); na reativa cada requisição faz a sua
+			LoadGenerator.Result result = LoadGenerator.run(client, CONNECTIONS, DURATION, i -> HttpRequest
+					.newBuilder(baseUri.resolve("/planets"))
+					.GET().build());
+			
+			commands.println("stop");
+			return result + " " + await(output, "usage=");
+		} finally {
+			server.destroy();
+			server.waitFor(30, TimeUnit.SECONDS);
+		}
+	}
+	
+	private static String await(BufferedReader output, String line) throws IOException {
+		String prefix = OUTPUT + line;
+		for (String read = output.readLine(); read != null; read = output.readLine()) {
+			if (read.startsWith(prefix)) {
+				return read.substring(prefix.length());
+			}
+		}
+		throw new IllegalStateException("Server exited before printing " + prefix);
+	}
+	
+	/**
+	 * Processo filho: sobe a pilha, publica a porta e mede o próprio heap/threads entre os comandos start e stop (stdin).
+	 */
+	public static class Server {
+		
+		public static void main(String[] args) throws Exception {
+			//O pai só lê o stdout entre os comandos: o log do Spring não pode encher o pipe durante a carga
+			PrintStream protocol = System.out;
+			System.setOut(System.err);
+			ConfigurableApplicationContext context = "reactive".equals(args[0])
+					? LoadGenerator.startReactive("reactive")
+					: LoadGenerator.start("spring.datasource.url=jdbc:h2:mem:servlet;DB_CLOSE_DELAY=-1");
+			try (context; BufferedReader commands = new BufferedReader(new InputStreamReader(System.in))) {
+				protocol.println(OUTPUT + "port=" + LoadGenerator.baseUri(context).getPort());
+				await(commands, "start");
+				
+				MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+				ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+				System.gc();
+				long idleHeap = memory.getHeapMemoryUsage().getUsed();
+				threads.resetPeakThreadCount();
+				
+				AtomicLong peakHeap = new AtomicLong(idleHeap);
+				ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+				sampler.scheduleAtFixedRate(() -> peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+						0, 100, TimeUnit.MILLISECONDS);
+				protocol.println(OUTPUT + "started");
+				
+				await(commands, "stop");
+				sampler.shutdownNow();
+				long heapPerConnection = (peakHeap.get() - idleHeap) / CONNECTIONS;
+				protocol.println(OUTPUT + String.format("usage=peakThreads=%d heapPerConnection=%dB",
+						threads.getPeakThreadCount(), heapPerConnection));
+			}
+		}
+		
+		private static void await(BufferedReader commands, String command) throws IOException {
+			for (String read = commands.readLine(); read != null; read = commands.readLine()) {
+				if (read.equals(command)) {
+					return;
+				}
+			}
+			throw new IllegalStateException("Load test closed the input before " + command);
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.claudio.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compara throughput e p99 entre o pool de threads de plataforma do Tomcat e o modo com virtual threads.
+ * Rodar com: mvn test -Pload -Dtest=ThreadModeLoadTest
+ */
+@Tag("load")
+public class ThreadModeLoadTest {
+	
+	private static final int CONCURRENCY = 400;
+	private static final Duration DURATION = Duration.ofSeconds(20);
+	
+	@Test
+	public void compareThroughputAndP99_PlatformVersusVirtualThreads() throws Exception {
+		LoadGenerator.Result platform = measure("platform", "planets.virtual-threads.enabled=false");
+		LoadGenerator.Result virtual = measure("virtual", "planets.virtual-threads.enabled=true");
+		
+		System.out.println("platform threads: " + platform);
+		System.out.println("virtual threads:  " + virtual);
+		
+		assertThat(platform.requests()).isPositive();
+		assertThat(virtual.requests()).isPositive();
+	}
+	
+	private LoadGenerator.Result measure(String database, String mode) throws Exception {
+		//pool de threads pequeno para que a saturação apareça antes do banco
+		try (ConfigurableApplicationContext context = LoadGenerator.start(mode,
+				"server.tomcat.threads.max=50",
+				"spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1")) {
+			HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+			URI baseUri = LoadGenerator.baseUri(context);
+			LoadGenerator.seed(client, baseUri, 5_000);
+			
+			//a paginação sempre vai ao banco (não passa pelo cache nem pelo índice)
+			return LoadGenerator.run(client, CONCURRENCY, DURATION, i -> HttpRequest
+					.newBuilder(baseUri.resolve("/planets?limit=50&after=" + (i * 50 % 5_000)))
+					.GET().build());
+		}
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.claudio.reactive;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.claudio.common.PlanetControllerScenarios;
+import com.claudio.domain.Planet;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Os cenários do PlanetControllerScenarios contra a pilha WebFlux
+ */
+@ActiveProfiles(ReactivePlanetApiApplication.PROFILE)
+@WebFluxTest(ReactivePlanetController.class)
+public class ReactivePlanetControllerTest extends PlanetControllerScenarios {
+	@MockBean
+	private ReactivePlanetService planetService;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
+	@Override
+	protected WebTestClient webTestClient() {
+		return webTestClient;
+	}
+
+	@Override
+	protected void givenCreated(Planet planet) {
+		when(planetService.create(planet)).thenReturn(Mono.just(planet));
+	}
+
+	@Override
+	protected void givenDuplicateName() {
+		when(planetService.create(any())).thenReturn(Mono.error(new DataIntegrityViolationException("duplicate")));
+	}
+
+	@Override
+	protected void givenPlanet(Long id, Planet planet) {
+		when(planetService.get(id)).thenReturn(Mono.justOrEmpty(planet));
+	}
+
+	@Override
+	protected void givenPlanetNamed(String name, Planet planet) {
+		when(planetService.getByName(name)).thenReturn(Mono.justOrEmpty(planet));
+	}
+
+	@Override
+	protected void givenList(String climate, String terrain, List<Planet> planets) {
+		when(planetService.list(climate, terrain)).thenReturn(Flux.fromIterable(planets));
+	}
+
+	@Override
+	protected void givenRemoved(Long id, boolean removed) {
+		when(planetService.remove(id)).thenReturn(Mono.just(removed));
+	}
+}
@@ -0,0 +1,86 @@
+package com.claudio.reactive;
+
+import static com.claudio.common.PlanetConstants.ALDERAAN;
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static com.claudio.common.PlanetConstants.YAVINIV;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import com.claudio.domain.Planet;
+
+/**
+ * Contra o H2 via R2DBC: o filtro casa tokens inteiros e as escritas gravam o outbox, como na pilha servlet
+ */
+@ActiveProfiles(ReactivePlanetApiApplication.PROFILE)
+@DataR2dbcTest
+@ContextConfiguration(classes = ReactivePlanetApiApplication.class)
+@Import(ReactivePlanetService.class)
+@TestPropertySource(properties = {
+		"spring.r2dbc.url=r2dbc:h2:mem:///reactive-service;DB_CLOSE_DELAY=-1;MODE=PostgreSQL",
+		"spring.r2dbc.username=sa",
+		"spring.r2dbc.password=",
+		"spring.sql.init.mode=always",
+		"spring.sql.init.schema-locations=classpath:reactive-schema.sql" })
+public class ReactivePlanetServiceTest {
+
+	@Autowired
+	private ReactivePlanetService planetService;
+
+	@Autowired
+	private DatabaseClient databaseClient;
+
+	@BeforeEach
+	public void createPlanets() {
+		databaseClient.sql("delete from planets").then().block();
+		databaseClient.sql("delete from planet_changes").then().block();
+		for (Planet planet : List.of(TATOOINE, ALDERAAN, YAVINIV)) {
+			planetService.create(new Planet(planet.getName(), planet.getClimate(), planet.getTerrain())).block();
+		}
+	}
+
+	@Test
+	public void listPlanets_ByClimateOrTerrainTokens_ReturnsPlanetsHavingAllOfThem() {
+		assertThat(names(null, null)).containsExactly("Tatooine", "Alderaan", "Yaviniv");
+		assertThat(names("temperate", null)).containsExactly("Alderaan", "Yaviniv");
+		assertThat(names(" Tropical,TEMPERATE ", null)).containsExactly("Yaviniv");
+		assertThat(names(null, "mountains")).containsExactly("Alderaan");
+		assertThat(names("temperate", "jungle")).containsExactly("Yaviniv");
+	}
+
+	@Test
+	public void listPlanets_WithPartialOrUnknownToken_ReturnsNoPlanets() {
+		assertThat(names("temp", null)).isEmpty();
+		assertThat(names("temperate", "desert")).isEmpty();
+	}
+
+	@Test
+	public void createAndRemove_WriteTheOutboxInTheSameTransaction() {
+		Planet hoth = planetService.create(new Planet("Hoth", "frozen", "tundra")).block();
+		
+		assertThat(hoth.getVersion()).isZero();
+		assertThat(planetService.remove(hoth.getId()).block()).isTrue();
+		assertThat(planetService.remove(hoth.getId()).block()).isFalse();
+		
+		List<String> changes = databaseClient.sql("select type, name from planet_changes where planet_id = :id order by id")
+				.bind("id", hoth.getId())
+				.map(row -> row.get("type", String.class) + ":" + row.get("name", String.class))
+				.all().collectList().block();
+		assertThat(changes).containsExactly("CREATED:hoth", "DELETED:null");
+	}
+	
+	private List<String> names(String climate, String terrain) {
+		return planetService.list(climate, terrain).map(Planet::getName).collectList().block();
+	}
+
+}
@@ -0,0 +1,80 @@
+package com.claudio.web;
+
+import static com.claudio.common.PlanetConstants.ALDERAAN;
+import static com.claudio.common.PlanetConstants.TATOOINE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.claudio.domain.PlanetChangeFeed;
+import com.claudio.domain.PlanetImporter;
+import com.claudio.domain.PlanetService;
+
+/**
+ * /planets/changes com o feed e o broadcaster reais
+ */
+@WebMvcTest(PlanetController.class)
+@Import({ PlanetChangeFeed.class, PlanetChangeBroadcaster.class })
+public class PlanetChangesStreamTest {
+	
+	@MockBean
+	private PlanetService planetService;
+	
+	@MockBean
+	private PlanetImporter planetImporter;
+	
+	@Autowired
+	private PlanetChangeFeed changeFeed;
+	
+	@Autowired
+	private MockMvc mockMvc;
+	
+	@Test
+	public void changes_StreamsNewEventsAndResumesFromLastEventId() throws Exception {
+		MockHttpServletResponse live = mockMvc.perform(get("/planets/changes"))
+				.andExpect(request().asyncStarted())
+				.andReturn().getResponse();
+		long beforeTatooine = changeFeed.lastSeq();
+		
+		changeFeed.created(TATOOINE);
+		changeFeed.deleted(ALDERAAN.getId());
+		
+		awaitContent(live, "event:deleted");
+		assertThat(live.getContentAsString())
+			.contains("id:" + (beforeTatooine + 1) + "\nevent:created\ndata:{\"seq\":" + (beforeTatooine + 1)
+					+ ",\"type\":\"CREATED\",\"id\":1,\"planet\":{\"id\":1,\"name\":\"Tatooine\"")
+			.contains("id:" + (beforeTatooine + 2) + "\nevent:deleted\n");
+		
+		MockHttpServletResponse resumed = mockMvc.perform(get("/planets/changes").header("Last-Event-ID", beforeTatooine + 1))
+				.andExpect(request().asyncStarted())
+				.andReturn().getResponse();
+		
+		awaitContent(resumed, "event:deleted");
+		assertThat(resumed.getContentAsString()).doesNotContain("event:created");
+		
+		MockHttpServletResponse reset = mockMvc.perform(get("/planets/changes").header("Last-Event-ID", 1))
+				.andExpect(request().asyncStarted())
+				.andReturn().getResponse();
+		
+		awaitContent(reset, "event:reset");
+	}
+	
+	private static void awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+		long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!response.getContentAsString().contains(expected)) {
+			assertThat(System.nanoTime()).as("no %s within 5s", expected).isLessThan(deadline);
+			Thread.sleep(10);
+		}
+	}
+
+}
@@ -1,19 +1,29 @@
 package com.claudio.web;
 
+import static com.claudio.common.PlanetConstants.ALDERAAN;
 import static com.claudio.common.PlanetConstants.PLANET;
 import static com.claudio.common.PlanetConstants.TATOOINE;
 import static com.claudio.common.PlanetConstants.PLANETS;
+import static com.claudio.common.PlanetConstants.YAVINIV;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasSize;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,124 +32,277 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
 
+import com.claudio.common.PlanetControllerScenarios;
+import com.claudio.domain.ImportReport;
 import com.claudio.domain.Planet;
+import com.claudio.domain.PlanetImporter;
+import com.claudio.domain.PlanetLookup;
 import com.claudio.domain.PlanetService;
+import com.claudio.domain.PlanetStats;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
- * Interação com contexto web
+ * Interação com contexto web: os cenários do PlanetControllerScenarios mais os exclusivos da pilha servlet
  */
 @WebMvcTest(PlanetController.class)
-public class PlanetControllerTest {
+public class PlanetControllerTest extends PlanetControllerScenarios {
 	@MockBean //usado com os controllers
 	private PlanetService planetService;
 	
+	@MockBean
+	private PlanetImporter planetImporter;
+	
+	@MockBean
+	private PlanetChangeBroadcaster changeBroadcaster;
+	
 	@Autowired
 	private MockMvc mockMvc;
 	
 	@Autowired
 	private ObjectMapper objectMapper;
 	
+	@Override
+	protected WebTestClient webTestClient() {
+		return MockMvcWebTestClient.bindTo(mockMvc).build();
+	}
+	
+	@Override
+	protected void givenCreated(Planet planet) {
+		when(planetService.create(planet)).thenReturn(planet);
+	}
+	
+	@Override
+	protected void givenDuplicateName() {
+		when(planetService.create(any())).thenThrow(DataIntegrityViolationException.class);
+	}
+	
+	@Override
+	protected void givenPlanet(Long id, Planet planet) {
+		when(planetService.get(id)).thenReturn(Optional.ofNullable(planet));
+	}
+	
+	@Override
+	protected void givenPlanetNamed(String name, Planet planet) {
+		when(planetService.getByName(name)).thenReturn(Optional.ofNullable(planet));
+	}
+	
+	@Override
+	protected void givenList(String climate, String terrain, List<Planet> planets) {
+		when(planetService.list(climate, terrain)).thenReturn(planets);
+	}
+	
+	@Override
+	protected void givenRemoved(Long id, boolean removed) {
+		when(planetService.remove(id)).thenReturn(removed);
+	}
+	
 	@Test
-	public void createPlanet_WithValidData_ReturnsCreated() throws Exception {
-		when(planetService.create(PLANET)).thenReturn(PLANET);
+	public void bulkCreatePlanets_WithJsonArrayOrNdjson_ImportsEveryRow() throws Exception {
+		List<Planet> imported = new ArrayList<>();
+		when(planetImporter.importPlanets(any())).thenAnswer(invocation -> {
+			Iterator<Planet> planets = invocation.getArgument(0);
+			planets.forEachRemaining(imported::add);
+			return new ImportReport();
+		});
 		
-		mockMvc.perform(post("/planets").content(objectMapper.writeValueAsString(PLANET)).contentType(MediaType.APPLICATION_JSON))
-		.andExpect(status().isCreated())
-		.andExpect(jsonPath("$").value(PLANET)); // O $ é o raiz do obj JSON  
+		mockMvc.perform(post("/planets/bulk").content(objectMapper.writeValueAsString(List.of(TATOOINE, ALDERAAN)))
+				.contentType(MediaType.APPLICATION_JSON))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.created").value(0));
+		
+		String ndjson = objectMapper.writeValueAsString(YAVINIV) + "\n" + objectMapper.writeValueAsString(PLANET) + "\n";
+		mockMvc.perform(post("/planets/bulk").content(ndjson).contentType(PlanetController.NDJSON))
+		.andExpect(status().isOk());
+		
+		assertThat(imported).containsExactly(TATOOINE, ALDERAAN, YAVINIV, PLANET);
 	}
 	
 	@Test
-	public void createPlanet_WithInvalidData_ReturnsBadRequest() throws Exception {
-		Planet emptyPlanet = new Planet(); //com todos os atributos nulos
-		Planet invalidPlanet = new Planet("", "", "");		
+	public void getPlanet_WithMatchingETag_ReturnsNotModifiedWithoutLoading() throws Exception {
+		when(planetService.versionTag(1L)).thenReturn(Optional.of("1-0"));
+		
+		mockMvc.perform(get("/planets/1").header(HttpHeaders.IF_NONE_MATCH, "W/\"1-0\""))
+		.andExpect(status().isNotModified())
+		.andExpect(header().string(HttpHeaders.ETAG, "W/\"1-0\""))
+		.andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"));
+		
+		verify(planetService, never()).get(1L);
+	}
 	
-		mockMvc.perform(post("/planets").content(objectMapper.writeValueAsString(emptyPlanet)).contentType(MediaType.APPLICATION_JSON))
-		.andExpect(status().isUnprocessableEntity());
+	@Test
+	public void getPlanet_WithStaleETag_ReturnsPlanetAndCurrentETag() throws Exception {
+		when(planetService.versionTag(TATOOINE.getId())).thenReturn(Optional.of("1-0"));
+		when(planetService.get(TATOOINE.getId())).thenReturn(Optional.of(TATOOINE));
 		
-		mockMvc.perform(post("/planets").content(objectMapper.writeValueAsString(invalidPlanet)).contentType(MediaType.APPLICATION_JSON))
-		.andExpect(status().isUnprocessableEntity());		
+		mockMvc.perform(get("/planets/1").header(HttpHeaders.IF_NONE_MATCH, "\"0-0\""))
+		.andExpect(status().isOk())
+		.andExpect(header().string(HttpHeaders.ETAG, "W/\"1-0\""))
+		.andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+		.andExpect(header().exists(HttpHeaders.CACHE_CONTROL))
+		.andExpect(jsonPath("$").value(TATOOINE));
 	}
 	
 	@Test
-	public void createPlanet_WithExistingName_ReturnConflict() throws Exception {
-		when(planetService.create(any())).thenThrow(DataIntegrityViolationException.class);
+	public void listPlanets_WithMatchingETag_ReturnsNotModified() throws Exception {
+		when(planetService.listVersionTag("arid", null, false)).thenReturn(Optional.of("100.7"));
 		
-		mockMvc.perform(post("/planets").content(objectMapper.writeValueAsString(PLANET)).contentType(MediaType.APPLICATION_JSON))
-		.andExpect(status().isConflict());	
+		mockMvc.perform(get("/planets?climate=arid").header(HttpHeaders.IF_NONE_MATCH, "\"c100.7\""))
+		.andExpect(status().isNotModified());
+		
+		verify(planetService, never()).list(any(), any());
 	}
 	
 	@Test
-	public void getPlanet_ByExistingId_ReturunsPlanet() throws Exception {
-		when(planetService.get(1L)).thenReturn(Optional.of(PLANET));
+	public void searchPlanets_ClampsLimitAndEdits() throws Exception {
+		when(planetService.search("tat", 2, PlanetController.MAX_SEARCH_RESULTS)).thenReturn(List.of(TATOOINE));
 		
-		mockMvc.perform(get("/planets/1"))
+		mockMvc.perform(get("/planets/search?q=tat&fuzzy=5&limit=1000"))
 		.andExpect(status().isOk())
-		.andExpect(jsonPath("$").value(PLANET));
+		.andExpect(jsonPath("$", hasSize(1)))
+		.andExpect(jsonPath("$[0]").value(TATOOINE));
+	}
+	
+	@Test
+	public void listPlanets_WithBinaryAccept_NegotiatesCborAndProtobuf() throws Exception {
+		when(planetService.list(null, null)).thenReturn(PLANETS);
+		
+		byte[] cbor = mockMvc.perform(get("/planets").accept(MediaType.APPLICATION_CBOR))
+		.andExpect(status().isOk())
+		.andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_CBOR_VALUE))
+		.andReturn().getResponse().getContentAsByteArray();
+		assertThat(new ObjectMapper(new CBORFactory()).readValue(cbor, Planet[].class)).containsExactlyElementsOf(PLANETS);
+		
+		byte[] protobuf = mockMvc.perform(get("/planets").accept(PlanetProtobuf.MEDIA_TYPE))
+		.andExpect(status().isOk())
+		.andReturn().getResponse().getContentAsByteArray();
+		InputStream in = new ByteArrayInputStream(protobuf);
+		List<Planet> decoded = new ArrayList<>();
+		for (Planet planet; (planet = PlanetProtobuf.readDelimited(in)) != null;) {
+			decoded.add(planet);
+		}
+		assertThat(decoded).containsExactlyElementsOf(PLANETS);
 	}
 	
 	@Test
-	public void getPlanet_ByuBExistingId_ReturunsNotFound() throws Exception {
-		mockMvc.perform(get("/planets/1"))
-		.andExpect(status().isNotFound());
+	public void createPlanet_WithProtobufBody_ReturnsCreated() throws Exception {
+		when(planetService.create(PLANET)).thenReturn(PLANET);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		PlanetProtobuf.writeDelimited(PLANET, body);
+		
+		mockMvc.perform(post("/planets").content(body.toByteArray()).contentType(PlanetProtobuf.MEDIA_TYPE))
+		.andExpect(status().isCreated())
+		.andExpect(jsonPath("$").value(PLANET));
 	}
 	
 	@Test
-	public void getPlanet_ByExistingName_ReturunsPlanet() throws Exception {
-		when(planetService.getByName(PLANET.getName())).thenReturn(Optional.of(PLANET));
+	public void batchGetPlanets_ByIdsAndNames_ReturnsLookupsInRequestOrder() throws Exception {
+		when(planetService.getAll(List.of(1L, 99L), List.of("alderaan"))).thenReturn(List.of(
+				new PlanetLookup(1L, null, true, TATOOINE),
+				new PlanetLookup(99L, null, false, null),
+				new PlanetLookup(null, "alderaan", true, ALDERAAN)));
 		
-		mockMvc.perform(get("/planets/name/" + PLANET.getName()))
+		mockMvc.perform(post("/planets/batch-get").content("{\"ids\":[1,99],\"names\":[\"alderaan\"]}")
+				.contentType(MediaType.APPLICATION_JSON))
 		.andExpect(status().isOk())
-		.andExpect(jsonPath("$").value(PLANET));
+		.andExpect(jsonPath("$", hasSize(3)))
+		.andExpect(jsonPath("$[0].planet").value(TATOOINE))
+		.andExpect(jsonPath("$[1].found").value(false))
+		.andExpect(jsonPath("$[1].planet").doesNotExist())
+		.andExpect(jsonPath("$[2].name").value("alderaan"));
+		
+		mockMvc.perform(get("/planets/batch-get?ids=1,99&names=alderaan"))
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$", hasSize(3)));
 	}
 	
 	@Test
-	public void getPlanet_ByuBExistingName_ReturunsNotFound() throws Exception {
-		mockMvc.perform(get("/planets/name/planetaW"))
-		.andExpect(status().isNotFound());
+	public void batchGetPlanets_OverTheCap_ReturnsBadRequest() throws Exception {
+		String ids = String.join(",", Collections.nCopies(101, "1"));
+		
+		mockMvc.perform(get("/planets/batch-get?ids=" + ids))
+		.andExpect(status().isBadRequest());
+		
+		verify(planetService, never()).getAll(any(), any());
 	}
 	
 	@Test
-	public void listPlanets_ReturnsFilteredPlanets() throws Exception {
-		when(planetService.list(null, null)).thenReturn(PLANETS);
-		when(planetService.list(TATOOINE.getClimate(), TATOOINE.getTerrain())).thenReturn(List.of(TATOOINE));
+	public void planetStats_ServedFromIndexOrUnavailableWhileLoading() throws Exception {
+		when(planetService.stats()).thenReturn(Optional.empty());
+		
+		mockMvc.perform(get("/planets/stats"))
+		.andExpect(status().isServiceUnavailable())
+		.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+		
+		when(planetService.listVersionTag()).thenReturn(Optional.of("100.7"));
+		when(planetService.stats()).thenReturn(Optional.of(PlanetStats.of(PLANETS)));
+		
+		mockMvc.perform(get("/planets/stats"))
+		.andExpect(status().isOk())
+		.andExpect(header().string(HttpHeaders.ETAG, "W/\"c100.7\""))
+		.andExpect(jsonPath("$.total").value(3))
+		.andExpect(jsonPath("$.climates.temperate").value(2))
+		.andExpect(jsonPath("$.pairs.arid.desert").value(1));
+	}
+	
+	@Test
+	public void listPlanets_WithLimit_ReturnsPageAndNextCursor() throws Exception {
+		when(planetService.page(null, null, null, 2)).thenReturn(List.of(TATOOINE, ALDERAAN));
+		when(planetService.page(null, null, ALDERAAN.getId(), 2)).thenReturn(List.of(YAVINIV));
 		
 		mockMvc
-		.perform(get("/planets"))
+		.perform(get("/planets?limit=2"))
 		.andExpect(status().isOk())
-		.andExpect(jsonPath("$", hasSize(3)));
+		.andExpect(jsonPath("$", hasSize(2)))
+		.andExpect(header().string(PlanetController.NEXT_AFTER_HEADER, String.valueOf(ALDERAAN.getId())));
 		
 		mockMvc
-		.perform(get("/planets?" + String.format("terrain=%s&climate=%s", TATOOINE.getTerrain(), TATOOINE.getClimate())))
+		.perform(get("/planets?limit=2&after=" + ALDERAAN.getId()))
 		.andExpect(status().isOk())
 		.andExpect(jsonPath("$", hasSize(1)))
-		.andExpect(jsonPath("$[0]").value(TATOOINE));		
+		.andExpect(header().doesNotExist(PlanetController.NEXT_AFTER_HEADER));
 	}
 	
 	@Test
-	public void listPlanets_ReturnsNoPlanets() throws Exception {
-		when(planetService.list(null, null)).thenReturn(Collections.emptyList());
-
-		mockMvc
-		.perform(get("/planets"))
-		.andExpect(status().isOk())
-		.andExpect(jsonPath("$", hasSize(0)));	
+	public void removePlanets_ByIds_ReturnsNoContentWithRemovedCount() throws Exception {
+		when(planetService.removeAll(List.of(1L, 2L, 99L))).thenReturn(2);
+		
+		mockMvc.perform(delete("/planets?ids=1,2,99"))
+		.andExpect(status().isNoContent())
+		.andExpect(header().string(PlanetController.REMOVED_COUNT_HEADER, "2"));
 	}
 	
 	@Test
-	public void removePlanet_WithExistingId_ReturnsNoContent() throws Exception {
-		mockMvc.perform(delete("/planets/1")).andExpect(status().isNoContent());
+	public void removePlanets_ByUnexistingIds_ReturnsNotFound() throws Exception {
+		when(planetService.removeAll(List.of(98L, 99L))).thenReturn(0);
+		
+		mockMvc.perform(delete("/planets?ids=98,99")).andExpect(status().isNotFound());
 	}
 	
 	@Test
-	public void removePlanet_WithUnexistingId_ReturnsNotFound() throws Exception {
-		final Long planetId = 1L;
-		doThrow(new EmptyResultDataAccessException(1)).when(planetService).remove(planetId);
-		
-		mockMvc.perform(delete("/planets/"+ planetId)).andExpect(status().isNotFound());
-	}	
+	public void errors_CountResponseStatusExceptionsAndNotFound() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		Metrics.addRegistry(registry);
+		try {
+			mockMvc.perform(get("/planets/1")).andExpect(status().isNotFound());
+			mockMvc.perform(get("/planets/batch-get?ids=" + String.join(",", Collections.nCopies(101, "1"))))
+			.andExpect(status().isBadRequest());
+			
+			assertThat(registry.get(GeneralExceptionHandler.ERRORS_METRIC).tags("outcome", "404", "exception", "none")
+					.counter().count()).isEqualTo(1);
+			assertThat(registry.get(GeneralExceptionHandler.ERRORS_METRIC).tags("outcome", "400", "exception", "ResponseStatusException")
+					.counter().count()).isEqualTo(1);
+		} finally {
+			Metrics.removeRegistry(registry);
+		}
+	}
 }
\ No newline at end of file
@@ -1,3 +1,20 @@
-INSERT INTO planets (id, name, climate, terrain) VALUES (1, 'Tatooine', 'arid', 'desert');
-INSERT INTO planets (id, name, climate, terrain) VALUES (2, 'Alderaan', 'temperate, grasslands', 'mountains');
-INSERT INTO planets (id, name, climate, terrain) VALUES (3, 'Yavin IV', 'temperate, tropical', 'jungle, rainfores');
\ No newline at end of file
+INSERT INTO planets (id, name, climate, terrain, version) VALUES (1, 'Tatooine', 'arid', 'desert', 0);
+INSERT INTO planets (id, name, climate, terrain, version) VALUES (2, 'Alderaan', 'temperate, grasslands', 'mountains', 0);
+INSERT INTO planets (id, name, climate, terrain, version) VALUES (3, 'Yavin IV', 'temperate, tropical', 'jungle, rainfores', 0);
+INSERT INTO climates (id, name) VALUES (1, 'arid');
+INSERT INTO climates (id, name) VALUES (2, 'temperate');
+INSERT INTO climates (id, name) VALUES (3, 'grasslands');
+INSERT INTO climates (id, name) VALUES (4, 'tropical');
+INSERT INTO terrains (id, name) VALUES (1, 'desert');
+INSERT INTO terrains (id, name) VALUES (2, 'mountains');
+INSERT INTO terrains (id, name) VALUES (3, 'jungle');
+INSERT INTO terrains (id, name) VALUES (4, 'rainfores');
+INSERT INTO planet_climates (planet_id, climate_id) VALUES (1, 1);
+INSERT INTO planet_climates (planet_id, climate_id) VALUES (2, 2);
+INSERT INTO planet_climates (planet_id, climate_id) VALUES (2, 3);
+INSERT INTO planet_climates (planet_id, climate_id) VALUES (3, 2);
+INSERT INTO planet_climates (planet_id, climate_id) VALUES (3, 4);
+INSERT INTO planet_terrains (planet_id, terrain_id) VALUES (1, 1);
+INSERT INTO planet_terrains (planet_id, terrain_id) VALUES (2, 2);
+INSERT INTO planet_terrains (planet_id, terrain_id) VALUES (3, 3);
+INSERT INTO planet_terrains (planet_id, terrain_id) VALUES (3, 4);
@@ -0,0 +1,34 @@
+create sequence if not exists planets_seq start with 1 increment by 50;
+create table if not exists planets (
+  id bigint primary key,
+  name varchar(255) not null unique,
+  climate varchar(255) not null,
+  terrain varchar(255) not null,
+  version bigint
+);
+create table if not exists climates (
+  id smallint generated by default as identity primary key,
+  name varchar(255) not null unique
+);
+create table if not exists terrains (
+  id smallint generated by default as identity primary key,
+  name varchar(255) not null unique
+);
+create table if not exists planet_climates (
+  planet_id bigint not null references planets (id) on delete cascade,
+  climate_id smallint not null references climates (id),
+  primary key (planet_id, climate_id)
+);
+create table if not exists planet_terrains (
+  planet_id bigint not null references planets (id) on delete cascade,
+  terrain_id smallint not null references terrains (id),
+  primary key (planet_id, terrain_id)
+);
+create table if not exists planet_changes (
+  id bigint generated by default as identity primary key,
+  planet_id bigint not null,
+  name varchar(255),
+  type varchar(16) not null,
+  origin varchar(36) not null,
+  changed_at timestamp(6) with time zone not null
+);